@@ -0,0 +1,52 @@
+package com.example.service.config;
+
+import com.example.service.entity.CityEntity;
+import javax.cache.CacheManager;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.expiry.ExpiryPolicy;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class EntityCacheConfig {
+
+    // one entry per table, read on every query cache hit to tell whether the result is still current
+    private static final long UPDATE_TIMESTAMPS_MAX_ENTRIES = 100;
+
+    /**
+     * Regions of Hibernate's second-level cache. Each context gets its own manager from its own provider, so test
+     * contexts never share regions. The timestamps region must not expire or evict while the query results do,
+     * otherwise a query result could outlive the knowledge that its table changed.
+     */
+    @Bean
+    public CacheManager entityCacheManager(EntityCacheProperties properties) {
+        var cacheManager = new EhcacheCachingProvider().getCacheManager();
+        cacheManager.createCache(CityEntity.CACHE_REGION, regionConfiguration(properties.getCityMaxEntries(),
+                ExpiryPolicyBuilder.timeToLiveExpiration(properties.getCityTtl())));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                regionConfiguration(properties.getQueryMaxEntries(),
+                        ExpiryPolicyBuilder.timeToLiveExpiration(properties.getQueryTtl())));
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                regionConfiguration(UPDATE_TIMESTAMPS_MAX_ENTRIES, ExpiryPolicyBuilder.noExpiration()));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheManagerCustomizer(CacheManager entityCacheManager) {
+        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+    }
+
+    private static javax.cache.configuration.Configuration<Object, Object> regionConfiguration(long maxEntries,
+            ExpiryPolicy<Object, Object> expiry) {
+        return Eh107Configuration.fromEhcacheCacheConfiguration(CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries))
+                .withExpiry(expiry));
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.service.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+
+@Getter
+@RequiredArgsConstructor
+@ConstructorBinding
+@ConfigurationProperties(prefix = "entity-cache-properties")
+public class EntityCacheProperties {
+
+    private final long cityMaxEntries;
+    private final Duration cityTtl;
+    private final long queryMaxEntries;
+    private final Duration queryTtl;
+
+}
@@ -0,0 +1,23 @@
+package com.example.service.config;
+
+import java.time.Duration;
+import java.util.List;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.util.unit.DataSize;
+
+@Getter
+@RequiredArgsConstructor
+@ConstructorBinding
+@ConfigurationProperties(prefix = "image-properties")
+public class ImageProperties {
+
+    private final Duration cacheMaxAge;
+    private final boolean cachePublic;
+    private final DataSize memoryCacheMaxSize;
+    private final DataSize memoryCacheMaxEntrySize;
+    private final List<Integer> derivativeWidths;
+
+}
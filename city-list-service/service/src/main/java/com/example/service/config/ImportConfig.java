@@ -0,0 +1,38 @@
+package com.example.service.config;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@EnableScheduling
+public class ImportConfig {
+
+    /**
+     * Runs the city batches of the import and the image stores of the import and refresh, so they never occupy the
+     * common ForkJoinPool or a HttpClient thread. When the queue is full the submitting thread runs the task itself,
+     * which throttles the import job; image stores take a {@link #cityImportPermits} permit and never get there.
+     */
+    @Bean(name = "cityImportExecutor")
+    public ThreadPoolTaskExecutor cityImportExecutor(ImportProperties properties) {
+        var executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getThreads());
+        executor.setMaxPoolSize(properties.getThreads());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("city-import-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+
+    /**
+     * Bounds the image downloads and stores in flight to what the import executor runs and queues.
+     */
+    @Bean(name = "cityImportPermits")
+    public Semaphore cityImportPermits(ImportProperties properties) {
+        return new Semaphore(properties.getThreads() + properties.getQueueCapacity());
+    }
+}
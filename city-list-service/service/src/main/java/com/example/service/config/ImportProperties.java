@@ -0,0 +1,19 @@
+package com.example.service.config;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+
+@Getter
+@RequiredArgsConstructor
+@ConstructorBinding
+@ConfigurationProperties(prefix = "import-properties")
+public class ImportProperties {
+
+    private final boolean enabled;
+    private final int threads;
+    private final int queueCapacity;
+    private final String imageRefreshCron;
+
+}
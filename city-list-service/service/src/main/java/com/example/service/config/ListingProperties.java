@@ -0,0 +1,21 @@
+package com.example.service.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+
+@Getter
+@RequiredArgsConstructor
+@ConstructorBinding
+@ConfigurationProperties(prefix = "listing-properties")
+public class ListingProperties {
+
+    private final Duration countCacheTtl;
+    private final long countCacheMaxSize;
+    private final int fuzzyMaxEditDistance;
+    private final Duration pageCacheTtl;
+    private final long pageCacheMaxSize;
+
+}
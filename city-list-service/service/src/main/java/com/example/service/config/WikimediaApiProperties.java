@@ -1,9 +1,11 @@
 package com.example.service.config;
 
+import java.time.Duration;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.util.unit.DataSize;
 
 @Getter
 @RequiredArgsConstructor
@@ -15,5 +17,13 @@ public class WikimediaApiProperties {
     private final String userAgent;
     private final int readTimeout;
     private final int connectionTimeout;
+    private final int maxConcurrentRequestsPerHost;
+    private final double requestsPerSecond;
+    private final int maxAttempts;
+    private final Duration retryInitialBackoff;
+    private final Duration retryMaxBackoff;
+    private final int circuitBreakerFailureThreshold;
+    private final Duration circuitBreakerOpenDuration;
+    private final DataSize maxImageSize;
 
 }
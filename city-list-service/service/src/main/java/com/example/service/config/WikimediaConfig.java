@@ -2,26 +2,42 @@ package com.example.service.config;
 
 import com.example.service.interceptor.BearerTokenAuthInterceptor;
 import com.example.service.interceptor.UserAgentHttpHeaderInterceptor;
+import java.net.http.HttpClient;
 import java.time.Duration;
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import java.util.concurrent.Executors;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 @Configuration
 public class WikimediaConfig {
 
-    @Bean(name = "wikimediaApiRestTemplate")
-    public RestTemplate wikimediaApiRestTemplate(
-            RestTemplateBuilder builder,
-            WikimediaApiProperties properties) {
-        return builder
-                .setConnectTimeout(Duration.ofMillis(properties.getConnectionTimeout()))
-                .setReadTimeout(Duration.ofMillis(properties.getReadTimeout()))
-                .additionalInterceptors(
-                        new BearerTokenAuthInterceptor(properties.getAuthToken()),
-                        new UserAgentHttpHeaderInterceptor(properties.getUserAgent())
-                )
+    private static final String HTTP_CLIENT_THREAD_NAME_PREFIX = "wikimedia-http-";
+
+    /**
+     * One shared client, so connections are pooled and HTTP/2 multiplexes concurrent downloads over them.
+     * Its threads only write response bodies and complete responses and are never held while waiting for data or
+     * for a permit, so a pool of one thread per core keeps up with any number of downloads in flight.
+     */
+    @Bean(name = "wikimediaHttpClient")
+    public HttpClient wikimediaHttpClient(WikimediaApiProperties properties) {
+        var threadFactory = new CustomizableThreadFactory(HTTP_CLIENT_THREAD_NAME_PREFIX);
+        threadFactory.setDaemon(true);
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(properties.getConnectionTimeout()))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), threadFactory))
                 .build();
     }
+
+    @Bean
+    public BearerTokenAuthInterceptor bearerTokenAuthInterceptor(WikimediaApiProperties properties) {
+        return new BearerTokenAuthInterceptor(properties.getAuthToken());
+    }
+
+    @Bean
+    public UserAgentHttpHeaderInterceptor userAgentHttpHeaderInterceptor(WikimediaApiProperties properties) {
+        return new UserAgentHttpHeaderInterceptor(properties.getUserAgent());
+    }
 }
@@ -1,16 +1,20 @@
 package com.example.service.controller;
 
+import com.example.service.config.ImageProperties;
+import com.example.service.dto.CitiesCursorResponse;
 import com.example.service.dto.CitiesPaginationResponse;
+import com.example.service.dto.CitiesSliceResponse;
 import com.example.service.dto.CityResponse;
+import com.example.service.dto.CitySuggestion;
 import com.example.service.dto.CityUpdateRequest;
 import com.example.service.service.CityService;
-import com.example.service.service.DatabaseInitializerService;
 import java.io.IOException;
-import java.util.concurrent.ExecutionException;
+import java.util.List;
 import javax.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.io.IOUtils;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -21,7 +25,6 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
-import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -32,15 +35,30 @@ import org.springframework.web.multipart.MultipartFile;
 @Slf4j
 public class CityController {
 
-    private final DatabaseInitializerService databaseInitializer;
     private final CityService cityService;
+    private final ImageProperties imageProperties;
 
     @GetMapping(
             value = "/images/{id}",
             produces = MediaType.IMAGE_JPEG_VALUE
     )
-    public @ResponseBody byte[] getImage(@PathVariable(value = "id") Long id) throws IOException {
-        return IOUtils.toByteArray(cityService.getImageById(id));
+    public ResponseEntity<Resource> getImage(@PathVariable(value = "id") Long id,
+            @RequestParam(value = "w", required = false) Integer width) throws IOException {
+        var cityImage = cityService.getImageById(id, width);
+        if (cityImage.isPlaceholder()) {
+            // the real image replaces it as soon as the import has fetched it
+            return ResponseEntity.ok()
+                    .contentType(MediaType.IMAGE_JPEG)
+                    .cacheControl(CacheControl.noStore())
+                    .body(cityImage.getImage());
+        }
+        // a matching If-None-Match / If-Modified-Since turns this into a 304 before the body is read
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_JPEG)
+                .eTag(cityImage.getETag())
+                .lastModified(cityImage.getLastModified())
+                .cacheControl(imageCacheControl())
+                .body(cityImage.getImage());
     }
 
     @PutMapping(value = "/update/{id}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -54,15 +72,57 @@ public class CityController {
     }
 
     @GetMapping("/get")
-    public ResponseEntity<CitiesPaginationResponse> getByPage(@RequestParam(value = "page") int page) throws IOException, ExecutionException, InterruptedException {
-        log.info("Got request with page 1");
-        databaseInitializer.initializeDB();
+    public ResponseEntity<CitiesPaginationResponse> getByPage(@RequestParam(value = "page") int page) {
         return new ResponseEntity<>(cityService.getCitiesByPage(page), HttpStatus.OK);
     }
 
+    /**
+     * With fuzzy=true the whole name is matched with typos and the closest names come first.
+     */
     @GetMapping("/search")
     public ResponseEntity<CitiesPaginationResponse> getByPageAndName(@RequestParam(value = "page") Integer page,
+            @RequestParam(value = "name") String name,
+            @RequestParam(value = "fuzzy", defaultValue = "false") boolean fuzzy) {
+        var citiesResponse = fuzzy ?
+                cityService.getCitiesByPageAndSimilarName(page, name) :
+                cityService.getCitiesByPageAndName(page, name);
+        return new ResponseEntity<>(citiesResponse, HttpStatus.OK);
+    }
+
+    /**
+     * Like /get without the totals, which saves counting the cities.
+     */
+    @GetMapping("/get/slice")
+    public ResponseEntity<CitiesSliceResponse> getSliceByPage(@RequestParam(value = "page") int page) {
+        return new ResponseEntity<>(cityService.getCitiesSliceByPage(page), HttpStatus.OK);
+    }
+
+    @GetMapping("/search/slice")
+    public ResponseEntity<CitiesSliceResponse> getSliceByPageAndName(@RequestParam(value = "page") Integer page,
             @RequestParam(value = "name") String name) {
-        return new ResponseEntity<>(cityService.getCitiesByPageAndName(page, name), HttpStatus.OK);
+        return new ResponseEntity<>(cityService.getCitiesSliceByPageAndName(page, name), HttpStatus.OK);
+    }
+
+    @GetMapping("/cities")
+    public ResponseEntity<CitiesCursorResponse> getAfterCursor(
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        return new ResponseEntity<>(cityService.getCitiesAfter(cursor), HttpStatus.OK);
+    }
+
+    @GetMapping("/cities/search")
+    public ResponseEntity<CitiesCursorResponse> getByNameAfterCursor(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "name") String name) {
+        return new ResponseEntity<>(cityService.getCitiesByNameAfter(cursor, name), HttpStatus.OK);
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<CitySuggestion>> suggest(@RequestParam(value = "prefix") String prefix) {
+        return new ResponseEntity<>(cityService.suggestCities(prefix), HttpStatus.OK);
+    }
+
+    private CacheControl imageCacheControl() {
+        var cacheControl = CacheControl.maxAge(imageProperties.getCacheMaxAge()).mustRevalidate();
+        return imageProperties.isCachePublic() ? cacheControl.cachePublic() : cacheControl.cachePrivate();
     }
 }
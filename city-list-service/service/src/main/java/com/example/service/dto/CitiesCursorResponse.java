@@ -0,0 +1,17 @@
+package com.example.service.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CitiesCursorResponse {
+    private List<CityResponse> cities;
+    /**
+     * Cursor of the following page, null on the last page.
+     */
+    private String next;
+}
@@ -0,0 +1,15 @@
+package com.example.service.dto;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CitiesSliceResponse {
+    private List<CityResponse> cities;
+    private int currentPage;
+    private boolean hasNext;
+}
@@ -0,0 +1,38 @@
+package com.example.service.dto;
+
+import com.example.service.exception.InvalidCursorException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import lombok.Value;
+
+/**
+ * Position of the last city of a page: its id, and its name when the listing is ordered by name.
+ * Handed to clients as an opaque URL-safe token, so its content can change without breaking them.
+ */
+@Value
+public class CityCursor {
+
+    private static final String SEPARATOR = ":";
+
+    Long id;
+    String name;
+
+    public String encode() {
+        var value = name == null ? String.valueOf(id) : id + SEPARATOR + name;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CityCursor decode(String cursor) {
+        try {
+            var value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            var separatorIndex = value.indexOf(SEPARATOR);
+            if (separatorIndex < 0) {
+                return new CityCursor(Long.parseLong(value), null);
+            }
+            return new CityCursor(Long.parseLong(value.substring(0, separatorIndex)),
+                    value.substring(separatorIndex + 1));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.core.io.Resource;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CityImage {
+    private Resource image;
+    private String eTag;
+    private long lastModified;
+    /**
+     * Set while the city image is still being imported; such a response must not be cached.
+     */
+    private boolean placeholder;
+
+    public CityImage(Resource image, String eTag, long lastModified) {
+        this(image, eTag, lastModified, false);
+    }
+}
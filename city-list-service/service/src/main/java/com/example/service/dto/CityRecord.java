@@ -0,0 +1,10 @@
+package com.example.service.dto;
+
+import lombok.Value;
+
+@Value
+public class CityRecord {
+    String id;
+    String name;
+    String photoUrl;
+}
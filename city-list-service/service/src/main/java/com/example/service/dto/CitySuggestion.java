@@ -0,0 +1,13 @@
+package com.example.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CitySuggestion {
+    private Long id;
+    private String name;
+}
@@ -0,0 +1,25 @@
+package com.example.service.dto;
+
+import java.nio.file.Path;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import lombok.With;
+
+@Value
+@AllArgsConstructor
+public class DownloadedImage {
+    Path file;
+    String hash;
+    long size;
+    /**
+     * Validators the source sent with the image, used to revalidate it later.
+     */
+    @With
+    String etag;
+    @With
+    String lastModified;
+
+    public DownloadedImage(Path file, String hash, long size) {
+        this(file, hash, size, null, null);
+    }
+}
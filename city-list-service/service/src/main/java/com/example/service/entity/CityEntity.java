@@ -1,14 +1,22 @@
 package com.example.service.entity;
 
+import com.example.service.utils.NameNormalizer;
+import javax.persistence.Cacheable;
+import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.GenericGenerator;
 import org.hibernate.annotations.Parameter;
 
@@ -16,10 +24,22 @@ import org.hibernate.annotations.Parameter;
 @Setter
 @Data
 @Entity
-@Table(name = "cities")
+// name, id serves the keyset pagination ordered by name; search_name the prefix and equality searches;
+// image_path the reference count of a shared image file
+@Table(name = "cities", indexes = {
+        @Index(name = "idx_cities_name_id", columnList = "name, id"),
+        @Index(name = "idx_cities_search_name", columnList = "searchName"),
+        @Index(name = "idx_cities_image_path", columnList = "imagePath")
+})
+// a city is read by id on every image request and changes rarely, so it is kept in the second-level cache
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CityEntity.CACHE_REGION)
 @AllArgsConstructor
 @NoArgsConstructor
 public class CityEntity {
+
+    public static final String CACHE_REGION = "cities";
+
     @Id
     @GeneratedValue(generator = "sequence-generator")
     @GenericGenerator(
@@ -28,11 +48,48 @@ public class CityEntity {
             parameters = {
                     @Parameter(name = "sequence_name", value = "city_sequence"),
                     @Parameter(name = "initial_value", value = "1"),
-                    @Parameter(name = "increment_size", value = "1")
+                    // hands out blocks of ids, so a batch of inserts needs one sequence round-trip instead of one per row
+                    @Parameter(name = "increment_size", value = "50"),
+                    @Parameter(name = "optimizer", value = "pooled-lo")
             }
     )
 
     private Long id;
     private String name;
     private String imagePath;
+
+    /**
+     * Id of the row in the seed file this city was imported from, used to resume an interrupted import.
+     */
+    @Column(unique = true)
+    private String sourceId;
+
+    /**
+     * Imported cities are stored before their image is downloaded; until then the image is served as a placeholder.
+     */
+    @Enumerated(EnumType.STRING)
+    private ImageStatus imageStatus = ImageStatus.READY;
+
+    private String sourceImageUrl;
+
+    /**
+     * Validators of the source image, sent back as If-None-Match / If-Modified-Since when the image is refreshed.
+     */
+    private String sourceImageEtag;
+    private String sourceImageLastModified;
+
+    /**
+     * The name as searched: accents stripped and lowercased by the {@link NameNormalizer}, so a search compares the
+     * stored key instead of applying functions to every row.
+     */
+    private String searchName;
+
+    public CityEntity(Long id, String name, String imagePath) {
+        this(id, name, imagePath, null, ImageStatus.READY, null, null, null, NameNormalizer.normalize(name));
+    }
+
+    public boolean isImageReady() {
+        // cities stored before the status was introduced have no status but always an image
+        return imageStatus == null || imageStatus == ImageStatus.READY;
+    }
 }
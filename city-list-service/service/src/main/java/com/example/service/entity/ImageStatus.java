@@ -0,0 +1,7 @@
+package com.example.service.entity;
+
+public enum ImageStatus {
+    PENDING,
+    READY,
+    FAILED
+}
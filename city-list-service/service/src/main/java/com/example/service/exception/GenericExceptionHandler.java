@@ -27,6 +27,16 @@ public class GenericExceptionHandler {
         return ExceptionResponseProvider.logAndGetErrorResponse(ex, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    ResponseEntity<ErrorResponse> invalidCursorExceptionHandler(InvalidCursorException ex) {
+        return ExceptionResponseProvider.logAndGetErrorResponse(ex, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidImageWidthException.class)
+    ResponseEntity<ErrorResponse> invalidImageWidthExceptionHandler(InvalidImageWidthException ex) {
+        return ExceptionResponseProvider.logAndGetErrorResponse(ex, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     ResponseEntity<ErrorResponse> methodArgumentNotValidExceptionHandler(MethodArgumentNotValidException ex) {
         return ExceptionResponseProvider.logAndGetValidationErrorResponse(ex);
@@ -0,0 +1,9 @@
+package com.example.service.exception;
+
+public class ImageTooLargeException extends RuntimeException {
+    public static final String IMAGE_TOO_LARGE_EXCEPTION_MESSAGE = "Image is larger than the limit of %d bytes";
+
+    public ImageTooLargeException(long maxSize) {
+        super(String.format(IMAGE_TOO_LARGE_EXCEPTION_MESSAGE, maxSize));
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.service.exception;
+
+
+public class InvalidCursorException extends RuntimeException {
+    public static final String INVALID_CURSOR_EXCEPTION_MESSAGE = "Invalid cursor: %s";
+
+    public InvalidCursorException(String cursor) {
+        super(String.format(INVALID_CURSOR_EXCEPTION_MESSAGE, cursor));
+    }
+}
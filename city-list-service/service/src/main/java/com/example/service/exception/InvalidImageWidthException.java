@@ -0,0 +1,10 @@
+package com.example.service.exception;
+
+
+public class InvalidImageWidthException extends RuntimeException {
+    public static final String INVALID_IMAGE_WIDTH_EXCEPTION_MESSAGE = "Invalid image width: %s";
+
+    public InvalidImageWidthException(int width) {
+        super(String.format(INVALID_IMAGE_WIDTH_EXCEPTION_MESSAGE, width));
+    }
+}
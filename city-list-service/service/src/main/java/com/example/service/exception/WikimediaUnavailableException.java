@@ -0,0 +1,10 @@
+package com.example.service.exception;
+
+public class WikimediaUnavailableException extends RuntimeException {
+    public static final String WIKIMEDIA_UNAVAILABLE_EXCEPTION_MESSAGE =
+            "Wikimedia API is failing, calls are suspended by the circuit breaker.";
+
+    public WikimediaUnavailableException() {
+        super(WIKIMEDIA_UNAVAILABLE_EXCEPTION_MESSAGE);
+    }
+}
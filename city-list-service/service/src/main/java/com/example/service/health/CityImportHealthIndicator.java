@@ -0,0 +1,44 @@
+package com.example.service.health;
+
+import com.example.service.service.CityImageImporter;
+import com.example.service.service.DatabaseInitializerService;
+import com.example.service.service.ImportState;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the startup city import. It is part of the readiness group, so the service
+ * is not ready to take traffic until the cities are stored; their images follow in the background.
+ * A failed import reports DOWN with its cause, so a broken seed does not go unnoticed.
+ */
+@Component
+@RequiredArgsConstructor
+public class CityImportHealthIndicator extends AbstractHealthIndicator {
+
+    private final DatabaseInitializerService databaseInitializer;
+    private final CityImageImporter cityImageImporter;
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        var state = databaseInitializer.getState();
+        if (state == ImportState.PENDING || state == ImportState.RUNNING) {
+            builder.outOfService();
+        } else if (state == ImportState.FAILED) {
+            // the seed is incomplete and stays so until the service is restarted
+            builder.down();
+            if (databaseInitializer.getFailure() != null) {
+                builder.withException(databaseInitializer.getFailure());
+            }
+        } else {
+            builder.up();
+        }
+        builder.withDetail("state", state)
+                .withDetail("totalCities", databaseInitializer.getTotalCities())
+                .withDetail("importedCities", databaseInitializer.getImportedCities())
+                .withDetail("skippedCities", databaseInitializer.getSkippedCities())
+                .withDetail("importedImages", cityImageImporter.getImportedImages())
+                .withDetail("failedImages", cityImageImporter.getFailedImages());
+    }
+}
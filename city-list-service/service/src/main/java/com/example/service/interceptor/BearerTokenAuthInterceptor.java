@@ -1,25 +1,21 @@
 package com.example.service.interceptor;
 
-import java.io.IOException;
+import java.net.http.HttpRequest;
 import lombok.AllArgsConstructor;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpRequest;
-import org.springframework.http.client.ClientHttpRequestExecution;
-import org.springframework.http.client.ClientHttpRequestInterceptor;
-import org.springframework.http.client.ClientHttpResponse;
 
 @AllArgsConstructor
-public class BearerTokenAuthInterceptor implements ClientHttpRequestInterceptor {
+public class BearerTokenAuthInterceptor implements HttpRequestInterceptor {
 
     private final String bearerTokenValue;
 
     @Override
-    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
-        HttpHeaders headers = request.getHeaders();
-        if (!headers.containsKey("Authorization")) {
-            headers.setBearerAuth(this.bearerTokenValue);
+    public HttpRequest intercept(HttpRequest request) {
+        if (request.headers().firstValue(HttpHeaders.AUTHORIZATION).isPresent()) {
+            return request;
         }
-
-        return execution.execute(request, body);
+        return HttpRequest.newBuilder(request, (name, value) -> true)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + this.bearerTokenValue)
+                .build();
     }
 }
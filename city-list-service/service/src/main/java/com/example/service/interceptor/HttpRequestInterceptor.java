@@ -0,0 +1,11 @@
+package com.example.service.interceptor;
+
+import java.net.http.HttpRequest;
+
+/**
+ * Adjusts a request before the {@link java.net.http.HttpClient} sends it, e.g. to add headers.
+ */
+public interface HttpRequestInterceptor {
+
+    HttpRequest intercept(HttpRequest request);
+}
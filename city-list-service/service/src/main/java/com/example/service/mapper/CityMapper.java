@@ -2,47 +2,81 @@ package com.example.service.mapper;
 
 
 import com.example.service.dto.CitiesPaginationResponse;
+import com.example.service.dto.CitiesSliceResponse;
 import com.example.service.dto.CityResponse;
 import com.example.service.dto.CityUpdateRequest;
 import com.example.service.entity.CityEntity;
+import com.example.service.entity.ImageStatus;
+import com.example.service.utils.NameNormalizer;
 import java.util.List;
-import org.modelmapper.ModelMapper;
+import java.util.Objects;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 public class CityMapper {
 
     private CityMapper() {
     }
 
-    private static final ModelMapper modelMapper = new ModelMapper();
-
-    public static CityEntity updateRequestToEntity(Long id, String imagePath, CityUpdateRequest cityProperties) {
+    public static CityEntity updateRequestToEntity(CityEntity currentEntity, String imagePath,
+            CityUpdateRequest cityProperties) {
         var entityNew = new CityEntity();
-        entityNew.setId(id);
+        entityNew.setId(currentEntity.getId());
         entityNew.setImagePath(imagePath);
         entityNew.setName(cityProperties.getName());
+        entityNew.setSearchName(NameNormalizer.normalize(cityProperties.getName()));
+        entityNew.setSourceId(currentEntity.getSourceId());
+        entityNew.setSourceImageUrl(currentEntity.getSourceImageUrl());
+        if (Objects.equals(imagePath, currentEntity.getImagePath())) {
+            entityNew.setImageStatus(currentEntity.getImageStatus());
+            entityNew.setSourceImageEtag(currentEntity.getSourceImageEtag());
+            entityNew.setSourceImageLastModified(currentEntity.getSourceImageLastModified());
+        } else {
+            // an uploaded image replaces a pending or failed import and is not refreshed from the source any more
+            entityNew.setImageStatus(ImageStatus.READY);
+        }
         return entityNew;
     }
 
+    /**
+     * Maps by hand rather than by reflection, as every listing maps each of its cities here.
+     */
     public static CityResponse entityToResponse(CityEntity cityEntity) {
-        return modelMapper.map(cityEntity, CityResponse.class);
+        return new CityResponse(cityEntity.getId(), cityEntity.getName(), cityEntity.getImagePath());
     }
 
     public static List<CityResponse> entityListToResponseList(List<CityEntity> cityList) {
         return cityList.stream().map(CityMapper::entityToResponse).toList();
     }
 
-    public static CitiesPaginationResponse pageEntityToPageResponse(Page<CityEntity> cityEntityPage) {
+    /**
+     * Takes a page of the cities already projected into responses by the query.
+     */
+    public static CitiesPaginationResponse pageToPageResponse(Page<CityResponse> cityPage) {
         var response = new CitiesPaginationResponse();
-        List<CityEntity> cityEntities = cityEntityPage.getContent();
+        List<CityResponse> cities = cityPage.getContent();
+
+        response.setCities(cities);
+        response.setTotalPages(cityPage.getTotalPages());
+        response.setTotalElements(cityPage.getTotalElements());
+        if (cities.isEmpty()) {
+            response.setCurrentPage(0);
+        } else {
+            response.setCurrentPage(cityPage.getPageable().getPageNumber() + 1);
+        }
+        return response;
+    }
+
+    public static CitiesSliceResponse sliceToSliceResponse(Slice<CityResponse> citySlice) {
+        var response = new CitiesSliceResponse();
+        List<CityResponse> cities = citySlice.getContent();
 
-        response.setCities(entityListToResponseList(cityEntities));
-        response.setTotalPages(cityEntityPage.getTotalPages());
-        response.setTotalElements(cityEntityPage.getTotalElements());
-        if (cityEntities.isEmpty()) {
+        response.setCities(cities);
+        response.setHasNext(citySlice.hasNext());
+        if (cities.isEmpty()) {
             response.setCurrentPage(0);
         } else {
-            response.setCurrentPage(cityEntityPage.getPageable().getPageNumber() + 1);
+            response.setCurrentPage(citySlice.getPageable().getPageNumber() + 1);
         }
         return response;
     }
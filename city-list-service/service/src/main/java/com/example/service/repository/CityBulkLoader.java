@@ -0,0 +1,86 @@
+package com.example.service.repository;
+
+import com.example.service.entity.CityEntity;
+import java.util.List;
+import javax.persistence.EntityManagerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Inserts imported cities with plain JDBC batches, bypassing the persistence context.
+ * Ids come from the same city_sequence table as the entity's pooled-lo generator, one block per call,
+ * so rows written here and through JPA never collide.
+ * Hibernate does not see these inserts, so the cached query results are evicted once they are committed.
+ */
+@Repository
+public class CityBulkLoader {
+
+    private static final int INSERT_BATCH_SIZE = 50;
+    private static final String INSERT_CITY_SQL = "insert into cities " +
+            "(id, name, image_path, source_id, image_status, source_image_url, search_name) " +
+            "values (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_NEXT_ID_SQL = "select next_val from city_sequence for update";
+    private static final String UPDATE_NEXT_ID_SQL = "update city_sequence set next_val = ? where next_val = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate idAllocationTransaction;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public CityBulkLoader(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.idAllocationTransaction = new TransactionTemplate(transactionManager);
+        // like Hibernate, allocate ids outside the inserting transaction so the sequence row is locked only briefly
+        this.idAllocationTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Assigns ids to the given cities and inserts them; the driver rewrites each batch into multi-row inserts.
+     */
+    @Transactional
+    public int insertAll(List<CityEntity> cities) {
+        if (cities.isEmpty()) {
+            return 0;
+        }
+        long firstId = allocateIds(cities.size());
+        for (int i = 0; i < cities.size(); i++) {
+            cities.get(i).setId(firstId + i);
+        }
+        jdbcTemplate.batchUpdate(INSERT_CITY_SQL, cities, INSERT_BATCH_SIZE, (statement, city) -> {
+            statement.setLong(1, city.getId());
+            statement.setString(2, city.getName());
+            statement.setString(3, city.getImagePath());
+            statement.setString(4, city.getSourceId());
+            statement.setString(5, city.getImageStatus() == null ? null : city.getImageStatus().name());
+            statement.setString(6, city.getSourceImageUrl());
+            statement.setString(7, city.getSearchName());
+        });
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // the cached entities stay valid, new rows only change the results of queries
+                entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class).evictQueryRegions();
+            }
+        });
+        return cities.size();
+    }
+
+    private long allocateIds(int count) {
+        Long firstId = idAllocationTransaction.execute(status -> {
+            Long nextId = jdbcTemplate.queryForObject(SELECT_NEXT_ID_SQL, Long.class);
+            jdbcTemplate.update(UPDATE_NEXT_ID_SQL, nextId + count, nextId);
+            return nextId;
+        });
+        if (firstId == null) {
+            throw new IllegalStateException("city_sequence is not initialized");
+        }
+        return firstId;
+    }
+}
@@ -1,11 +1,127 @@
 package com.example.service.repository;
 
+import com.example.service.dto.CityResponse;
 import com.example.service.entity.CityEntity;
-import org.springframework.data.domain.Page;
+import com.example.service.entity.ImageStatus;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
 
 public interface CityRepository extends JpaRepository<CityEntity, Long> {
 
-    Page<CityEntity> findAllByNameIsContainingIgnoreCase(String name, Pageable pageable);
+    String SELECT_CITY_RESPONSE = "select new com.example.service.dto.CityResponse(c.id, c.name, c.imagePath) " +
+            "from CityEntity c";
+    // escapes the wildcards, so that a % or _ in the search name matches only itself
+    String SEARCH_NAME_CONTAINING = "concat('%', :#{escape(#searchName)}, '%') escape :#{escapeCharacter()}";
+
+    /**
+     * Reads one city more than the page to tell whether a next page exists, instead of counting all cities.
+     * The listings select the response columns straight into {@link CityResponse} in a read-only transaction, so no
+     * entity is hydrated, snapshotted for dirty checking or mapped afterwards. They are cacheable: the query cache
+     * keeps the rows of a page until any change of the table invalidates them.
+     */
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query(SELECT_CITY_RESPONSE)
+    Slice<CityResponse> findResponseSliceBy(Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query(SELECT_CITY_RESPONSE + " where c.searchName like " + SEARCH_NAME_CONTAINING)
+    Slice<CityResponse> findResponseSliceBySearchNameContaining(@Param("searchName") String searchName,
+            Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @Query(SELECT_CITY_RESPONSE + " where c.id in :ids")
+    List<CityResponse> findResponsesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    long countBySearchNameContaining(String searchName);
+
+    /**
+     * A prefix of the indexed search name is a range scan.
+     */
+    List<CityEntity> findBySearchNameStartingWithOrderBySearchName(String searchPrefix, Pageable pageable);
+
+    List<CityEntity> findBySearchNameIsNullAndNameIsNotNull(Pageable pageable);
+
+    List<CityEntity> findByIdGreaterThanOrderById(Long id, Pageable pageable);
+
+    /**
+     * Keyset page of the cities matching the name, ordered by (name, id) and starting after the given position.
+     */
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select c from CityEntity c where c.searchName like " + SEARCH_NAME_CONTAINING + " " +
+            "and (c.name > :lastName or (c.name = :lastName and c.id > :lastId)) order by c.name, c.id")
+    List<CityEntity> findByNameContainingAfter(@Param("searchName") String searchName,
+            @Param("lastName") String lastName, @Param("lastId") Long lastId, Pageable pageable);
+
+    long countByImagePath(String imagePath);
+
+    boolean existsBySourceIdIsNotNull();
+
+    @Query("select c.sourceId from CityEntity c where c.sourceId in :sourceIds")
+    Set<String> findSourceIdsIn(@Param("sourceIds") Collection<String> sourceIds);
+
+    List<CityEntity> findByImageStatusInAndIdGreaterThanOrderById(Collection<ImageStatus> imageStatuses, Long id,
+            Pageable pageable);
+
+    /**
+     * Cities whose image came from the source and can be revalidated there, i.e. it was not replaced by an upload.
+     */
+    @Query("select c from CityEntity c where c.imageStatus = com.example.service.entity.ImageStatus.READY " +
+            "and c.sourceImageUrl is not null " +
+            "and (c.sourceImageEtag is not null or c.sourceImageLastModified is not null) " +
+            "and c.id > :id order by c.id")
+    List<CityEntity> findRefreshableImages(@Param("id") Long id, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from CityEntity c where c.id = :id")
+    Optional<CityEntity> findForUpdateById(@Param("id") Long id);
+
+    /**
+     * Sets the imported image unless the city got an image in the meantime, e.g. from an upload.
+     * Written through the entity, so only this city leaves the second-level cache.
+     */
+    @Transactional
+    default int updateImportedImage(Long id, String imagePath, ImageStatus imageStatus, String etag,
+            String lastModified) {
+        var city = findForUpdateById(id).filter(current -> current.getImageStatus() != ImageStatus.READY);
+        city.ifPresent(current -> {
+            current.setImagePath(imagePath);
+            current.setImageStatus(imageStatus);
+            current.setSourceImageEtag(etag);
+            current.setSourceImageLastModified(lastModified);
+        });
+        return city.isPresent() ? 1 : 0;
+    }
+
+    /**
+     * Sets the refreshed image unless the city's image was replaced since it was read.
+     */
+    @Transactional
+    default int updateRefreshedImage(Long id, String currentImagePath, String imagePath, String etag,
+            String lastModified) {
+        var city = findForUpdateById(id).filter(current -> Objects.equals(current.getImagePath(), currentImagePath));
+        city.ifPresent(current -> {
+            current.setImagePath(imagePath);
+            current.setSourceImageEtag(etag);
+            current.setSourceImageLastModified(lastModified);
+        });
+        return city.isPresent() ? 1 : 0;
+    }
 }
@@ -0,0 +1,49 @@
+package com.example.service.service;
+
+import com.example.service.config.ListingProperties;
+import com.example.service.utils.NameNormalizer;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.util.function.LongSupplier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the total number of cities per search term for a short time, so paging through a listing counts the
+ * matching cities once instead of on every page. The empty term stands for the whole list.
+ */
+@Component
+public class CityCountCache {
+
+    private static final String CACHE_NAME = "city-counts";
+
+    private final Cache<String, Long> cache;
+
+    public CityCountCache(ListingProperties properties, MeterRegistry meterRegistry) {
+        this.cache = CacheBuilder.newBuilder()
+                .expireAfterWrite(properties.getCountCacheTtl())
+                .maximumSize(properties.getCountCacheMaxSize())
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public long get(String name, LongSupplier counter) {
+        // the search ignores case and accents, so does the key
+        var key = NameNormalizer.normalize(name);
+        var count = cache.getIfPresent(key);
+        if (count == null) {
+            count = counter.getAsLong();
+            cache.put(key, count);
+        }
+        return count;
+    }
+
+    /**
+     * Renaming or adding a city may change the count of any search term.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
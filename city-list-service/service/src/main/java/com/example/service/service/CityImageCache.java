@@ -0,0 +1,92 @@
+package com.example.service.service;
+
+import com.example.service.config.ImageProperties;
+import com.example.service.dto.CityImage;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the bytes of frequently requested city images in memory, bounded by their total size.
+ */
+@Slf4j
+@Component
+public class CityImageCache {
+
+    private static final String CACHE_NAME = "city-images";
+
+    private final Cache<ImageKey, CachedImage> cache;
+    private final long maxEntrySize;
+    private final AtomicLong generation = new AtomicLong();
+
+    public CityImageCache(ImageProperties properties, MeterRegistry meterRegistry) {
+        this.maxEntrySize = properties.getMemoryCacheMaxEntrySize().toBytes();
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(properties.getMemoryCacheMaxSize().toBytes())
+                .weigher((ImageKey key, CachedImage image) -> image.getData().length)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Returns the cached image, or loads it and keeps it unless it is a placeholder or larger than an entry may be.
+     */
+    public CityImage get(Long id, int width, Supplier<CityImage> loader) {
+        var key = new ImageKey(id, width);
+        var cachedImage = cache.getIfPresent(key);
+        if (cachedImage != null) {
+            return new CityImage(new ByteArrayResource(cachedImage.getData()), cachedImage.getETag(),
+                    cachedImage.getLastModified());
+        }
+        var loadedGeneration = generation.get();
+        var cityImage = loader.get();
+        if (!cityImage.isPlaceholder()) {
+            put(key, cityImage);
+            // an image loaded while a city changed may be the replaced one, so it is served but not kept
+            if (generation.get() != loadedGeneration) {
+                cache.invalidate(key);
+            }
+        }
+        return cityImage;
+    }
+
+    public void invalidate(Long id) {
+        generation.incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> key.getId().equals(id));
+    }
+
+    private void put(ImageKey key, CityImage cityImage) {
+        try {
+            if (cityImage.getImage().contentLength() > maxEntrySize) {
+                return;
+            }
+            try (var imageStream = cityImage.getImage().getInputStream()) {
+                cache.put(key, new CachedImage(imageStream.readAllBytes(), cityImage.getETag(), cityImage.getLastModified()));
+            }
+        } catch (IOException e) {
+            log.warn("Could not cache the image of city id = {}. {}", key.getId(), e.getMessage());
+        }
+    }
+
+    @Value
+    private static class ImageKey {
+        Long id;
+        int width;
+    }
+
+    @Value
+    private static class CachedImage {
+        byte[] data;
+        String eTag;
+        long lastModified;
+    }
+}
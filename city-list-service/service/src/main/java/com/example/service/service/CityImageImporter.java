@@ -0,0 +1,113 @@
+package com.example.service.service;
+
+import com.example.service.config.WikimediaApiProperties;
+import com.example.service.dto.DownloadedImage;
+import com.example.service.entity.CityEntity;
+import com.example.service.entity.ImageStatus;
+import com.example.service.exception.WikimediaUnavailableException;
+import com.example.service.repository.CityRepository;
+import com.example.service.utils.CityBatches;
+import java.util.EnumSet;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Second phase of the city import: downloads the images of the cities stored as pending and marks them ready.
+ * Cities whose image failed before are retried, so a restart picks up everything that is still missing.
+ * While Wikimedia is unavailable the images are not attempted; the import waits for the breaker and resumes.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CityImageImporter {
+
+    private static final int IMAGE_IMPORT_BATCH_SIZE = 200;
+    private final CityRepository cityRepository;
+    private final CityPageCache pageCache;
+    private final WikimediaRestClientService restClient;
+    private final CityImageStore imageStore;
+    private final ThreadPoolTaskExecutor cityImportExecutor;
+    private final Semaphore cityImportPermits;
+    private final WikimediaApiProperties wikimediaApiProperties;
+
+    private final AtomicInteger importedImages = new AtomicInteger();
+    private final AtomicInteger failedImages = new AtomicInteger();
+
+    public void importPendingImages() {
+        log.info("Image import started.");
+        try {
+            int deferredImages;
+            while ((deferredImages = importImages()) > 0) {
+                var openDuration = wikimediaApiProperties.getCircuitBreakerOpenDuration();
+                log.info("Wikimedia is unavailable, {} images are resumed in {}.", deferredImages, openDuration);
+                Thread.sleep(openDuration.toMillis());
+            }
+            log.info("Image import completed. imported = {}, failed = {}", importedImages.get(), failedImages.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | RuntimeException e) {
+            log.error("Image import failed.", e);
+        }
+    }
+
+    /**
+     * Returns the number of images the open circuit breaker turned away; their cities keep their status.
+     */
+    private int importImages() throws InterruptedException, ExecutionException {
+        var importedStatuses = EnumSet.of(ImageStatus.PENDING, ImageStatus.FAILED);
+        var deferredImages = new AtomicInteger();
+        // downloads run concurrently up to the import permits, storing them takes the bounded import executor
+        CityBatches.forEachBatch(IMAGE_IMPORT_BATCH_SIZE, cityImportPermits,
+                (lastId, batch) -> cityRepository.findByImageStatusInAndIdGreaterThanOrderById(importedStatuses,
+                        lastId, batch),
+                city -> restClient.fetchImage(city.getSourceImageUrl())
+                        .thenAcceptAsync(image -> storeImage(city, image), cityImportExecutor)
+                        .exceptionally(e -> {
+                            var cause = e instanceof CompletionException ? e.getCause() : e;
+                            if (cause.getCause() instanceof WikimediaUnavailableException) {
+                                deferredImages.incrementAndGet();
+                            } else {
+                                markImageFailed(city, cause);
+                            }
+                            return null;
+                        }));
+        return deferredImages.get();
+    }
+
+    public int getImportedImages() {
+        return importedImages.get();
+    }
+
+    public int getFailedImages() {
+        return failedImages.get();
+    }
+
+    private void storeImage(CityEntity city, DownloadedImage image) {
+        var imported = imageStore.store(image, imagePath -> {
+            if (cityRepository.updateImportedImage(city.getId(), imagePath, ImageStatus.READY, image.getEtag(),
+                    image.getLastModified()) == 0) {
+                // an image was uploaded meanwhile and wins over the imported one
+                imageStore.release(imagePath);
+                return false;
+            }
+            return true;
+        });
+        if (imported) {
+            pageCache.invalidate(city.getId());
+            importedImages.incrementAndGet();
+        }
+    }
+
+    private void markImageFailed(CityEntity city, Throwable e) {
+        // one broken image must not stop the others
+        cityRepository.updateImportedImage(city.getId(), null, ImageStatus.FAILED, null, null);
+        failedImages.incrementAndGet();
+        log.error("Image of the city id = {} could not be imported. {}", city.getId(), e.getMessage());
+    }
+}
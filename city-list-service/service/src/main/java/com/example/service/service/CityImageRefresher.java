@@ -0,0 +1,100 @@
+package com.example.service.service;
+
+import com.example.service.dto.DownloadedImage;
+import com.example.service.entity.CityEntity;
+import com.example.service.repository.CityRepository;
+import com.example.service.utils.CityBatches;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the imported images in step with the source. Every image is revalidated with the ETag / Last-Modified it was
+ * downloaded with, so an unchanged image costs a 304 response; only the images that changed are downloaded and
+ * replace the stored file. Uploaded images are not refreshed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CityImageRefresher {
+
+    private static final int IMAGE_REFRESH_BATCH_SIZE = 200;
+    private final CityRepository cityRepository;
+    private final WikimediaRestClientService restClient;
+    private final DatabaseInitializerService databaseInitializerService;
+    private final CityImageCache imageCache;
+    private final CityPageCache pageCache;
+    private final CityImageStore imageStore;
+    private final ThreadPoolTaskExecutor cityImportExecutor;
+    private final Semaphore cityImportPermits;
+
+    @Scheduled(cron = "${import-properties.image-refresh-cron}")
+    public void refreshImages() {
+        if (databaseInitializerService.getState() == ImportState.RUNNING) {
+            log.info("Image refresh skipped, the city import is still running.");
+            return;
+        }
+        log.info("Image refresh started.");
+        var unchangedImages = new AtomicInteger();
+        var refreshedImages = new AtomicInteger();
+        var failedImages = new AtomicInteger();
+        try {
+            CityBatches.forEachBatch(IMAGE_REFRESH_BATCH_SIZE, cityImportPermits, cityRepository::findRefreshableImages,
+                    city -> restClient.revalidateImage(city.getSourceImageUrl(), city.getSourceImageEtag(),
+                                    city.getSourceImageLastModified())
+                            .thenAcceptAsync(image -> {
+                                var counter = refreshImage(city, image) ? refreshedImages : unchangedImages;
+                                counter.incrementAndGet();
+                            }, cityImportExecutor)
+                            .exceptionally(e -> {
+                                // the stored image stays in place and is revalidated again on the next run
+                                failedImages.incrementAndGet();
+                                log.warn("Image of the city id = {} could not be refreshed. {}", city.getId(),
+                                        (e instanceof CompletionException ? e.getCause() : e).getMessage());
+                                return null;
+                            }));
+            log.info("Image refresh completed. unchanged = {}, refreshed = {}, failed = {}",
+                    unchangedImages.get(), refreshedImages.get(), failedImages.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | RuntimeException e) {
+            log.error("Image refresh failed.", e);
+        }
+    }
+
+    /**
+     * Returns true when the stored image was replaced.
+     */
+    private boolean refreshImage(CityEntity city, Optional<DownloadedImage> download) {
+        if (download.isEmpty()) {
+            return false;
+        }
+        var image = download.get();
+        var imageReplaced = imageStore.store(image, imagePath -> {
+            // images are stored by content hash, so an image that only got new validators keeps its file
+            var imageChanged = !imagePath.equals(city.getImagePath());
+            if (cityRepository.updateRefreshedImage(city.getId(), city.getImagePath(), imagePath, image.getEtag(),
+                    image.getLastModified()) == 0) {
+                // the image was replaced by an upload meanwhile
+                if (imageChanged) {
+                    imageStore.release(imagePath);
+                }
+                return false;
+            }
+            return imageChanged;
+        });
+        if (imageReplaced) {
+            imageCache.invalidate(city.getId());
+            pageCache.invalidate(city.getId());
+            imageStore.release(city.getImagePath());
+        }
+        return imageReplaced;
+    }
+}
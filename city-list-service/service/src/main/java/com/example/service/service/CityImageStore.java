@@ -0,0 +1,88 @@
+package com.example.service.service;
+
+import com.example.service.config.ImageProperties;
+import com.example.service.dto.DownloadedImage;
+import com.example.service.repository.CityRepository;
+import com.example.service.utils.FileManager;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.Striped;
+import java.io.IOException;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stores the city images by content hash, shared by every city with the same image. Storing an image with the city
+ * referring to it and releasing it run under the lock of the image.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CityImageStore {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final CityRepository cityRepository;
+    private final ImageProperties imageProperties;
+    private final Striped<Lock> imageLocks = Striped.lock(LOCK_STRIPES);
+
+    /**
+     * Stores an uploaded image and passes its path to the referenceSaver, which saves the city referring to it.
+     */
+    public <T> T store(byte[] image, Function<String, T> referenceSaver) {
+        var imageHash = Hashing.sha256().hashBytes(image).toString();
+        return withImageLock(imageHash, () -> saveReference(FileManager.saveImageToFileStorage(image, imageHash), referenceSaver));
+    }
+
+    /**
+     * Moves a downloaded image into the storage and passes its path to the referenceSaver.
+     */
+    public <T> T store(DownloadedImage image, Function<String, T> referenceSaver) {
+        return withImageLock(image.getHash(), () ->
+                saveReference(FileManager.moveImageToFileStorage(image.getFile(), image.getHash()), referenceSaver));
+    }
+
+    /**
+     * Deletes the image unless a city still refers to it.
+     */
+    public void release(String imagePath) {
+        withImageLock(FileManager.getImageHash(imagePath).orElse(imagePath), () -> {
+            try {
+                if (cityRepository.countByImagePath(imagePath) == 0) {
+                    FileManager.deleteImage(imagePath);
+                    log.info("Deleted unreferenced image = {}", imagePath);
+                }
+            } catch (IOException e) {
+                log.warn("Could not delete unused image = {}. {}", imagePath, e.getMessage());
+            }
+            return null;
+        });
+    }
+
+    private <T> T saveReference(String imagePath, Function<String, T> referenceSaver) {
+        FileManager.saveImageDerivatives(imagePath, imageProperties.getDerivativeWidths());
+        try {
+            return referenceSaver.apply(imagePath);
+        } catch (RuntimeException e) {
+            try {
+                release(imagePath);
+            } catch (RuntimeException releaseFailure) {
+                e.addSuppressed(releaseFailure);
+            }
+            throw e;
+        }
+    }
+
+    private <T> T withImageLock(String imageHash, Supplier<T> action) {
+        var lock = imageLocks.get(imageHash);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
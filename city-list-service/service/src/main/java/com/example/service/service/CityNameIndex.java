@@ -0,0 +1,280 @@
+package com.example.service.service;
+
+import com.example.service.dto.CitySuggestion;
+import com.example.service.entity.CityEntity;
+import com.example.service.repository.CityRepository;
+import com.example.service.utils.BkTree;
+import com.example.service.utils.NameNormalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory trigram index over the city names, answering substring, prefix and fuzzy searches without scanning
+ * the table. Terms shorter than a trigram are left to the DB.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CityNameIndex {
+
+    private static final int GRAM_SIZE = 3;
+    private static final char SUGGESTION_KEY_SEPARATOR = '\0';
+    private static final int BUILD_BATCH_SIZE = 1000;
+    private static final String BUILD_THREAD_NAME_PREFIX = "city-name-index-";
+    private final CityRepository cityRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, String> names = new HashMap<>();
+    private final Map<Long, PostingList> postings = new HashMap<>();
+    private final NavigableMap<String, CitySuggestion> suggestions = new TreeMap<>();
+    private final BkTree<Long> fuzzyNames = new BkTree<>();
+    private volatile boolean ready;
+
+    /**
+     * Builds the index on its own thread, so it holds up neither the other startup listeners nor the readiness.
+     * Until it is ready the searches are answered by the DB.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        new SimpleAsyncTaskExecutor(BUILD_THREAD_NAME_PREFIX).execute(() -> {
+            try {
+                build();
+            } catch (RuntimeException e) {
+                log.error("City name index build failed, the searches are answered by the DB.", e);
+            }
+        });
+    }
+
+    public void build() {
+        log.info("City name index build started.");
+        List<CityEntity> cities;
+        long lastId = 0;
+        do {
+            cities = cityRepository.findByIdGreaterThanOrderById(lastId, PageRequest.ofSize(BUILD_BATCH_SIZE));
+            lock.writeLock().lock();
+            try {
+                // a city renamed or imported while the build runs is already indexed with its current name
+                cities.stream()
+                        .filter(city -> !names.containsKey(city.getId()))
+                        .forEach(this::index);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!cities.isEmpty()) {
+                lastId = cities.get(cities.size() - 1).getId();
+            }
+        } while (cities.size() == BUILD_BATCH_SIZE);
+        ready = true;
+        log.info("City name index build completed. cities = {}", names.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void put(CityEntity city) {
+        putAll(List.of(city));
+    }
+
+    public void putAll(Collection<CityEntity> cities) {
+        lock.writeLock().lock();
+        try {
+            cities.forEach(this::index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            var name = names.remove(id);
+            if (name != null) {
+                suggestions.remove(suggestionKey(name, id));
+                unindex(id, name);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of the cities whose name contains the term ignoring case, in ascending order, or empty when the
+     * index cannot answer: it is still being built or the term is shorter than a trigram.
+     */
+    public Optional<List<Long>> findIdsContaining(String term) {
+        var key = normalize(term);
+        if (!ready || key.length() < GRAM_SIZE) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            PostingList shortest = null;
+            for (long gram : grams(key)) {
+                var posting = postings.get(gram);
+                if (posting == null) {
+                    return Optional.of(List.of());
+                }
+                if (shortest == null || posting.size < shortest.size) {
+                    shortest = posting;
+                }
+            }
+            // sharing every trigram does not mean containing the term, e.g. "abcab" for "cabc"
+            var ids = new ArrayList<Long>();
+            for (int i = 0; i < shortest.size; i++) {
+                var id = shortest.ids[i];
+                if (names.get(id).contains(key)) {
+                    ids.add(id);
+                }
+            }
+            return Optional.of(ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to limit cities whose name starts with the prefix ignoring case, ordered by name, or empty while the
+     * index is still being built.
+     */
+    public Optional<List<CitySuggestion>> findStartingWith(String prefix, int limit) {
+        var key = normalize(prefix);
+        if (!ready) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            var matches = new ArrayList<CitySuggestion>(limit);
+            for (var entry : suggestions.tailMap(key, true).entrySet()) {
+                if (matches.size() == limit || !entry.getKey().startsWith(key)) {
+                    break;
+                }
+                matches.add(entry.getValue());
+            }
+            return Optional.of(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of the cities whose whole name is within maxDistance edits of the term ignoring case, closest
+     * first, or empty while the index is still being built.
+     */
+    public Optional<List<Long>> findIdsSimilarTo(String term, int maxDistance) {
+        var key = normalize(term);
+        if (!ready) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            return Optional.of(fuzzyNames.search(key, maxDistance).stream()
+                    .sorted(Comparator.comparingInt(BkTree.Match<Long>::getDistance)
+                            .thenComparing(BkTree.Match::getKey))
+                    .flatMap(match -> match.getValues().stream().sorted())
+                    .toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void index(CityEntity city) {
+        var name = normalize(city.getName());
+        var previousName = names.put(city.getId(), name);
+        if (previousName != null) {
+            suggestions.remove(suggestionKey(previousName, city.getId()));
+        }
+        // the key keeps cities of the same name apart, and the separator sorts a name before its longer variants
+        suggestions.put(suggestionKey(name, city.getId()), new CitySuggestion(city.getId(), city.getName()));
+        if (name.equals(previousName)) {
+            return;
+        }
+        if (previousName != null) {
+            unindex(city.getId(), previousName);
+        }
+        fuzzyNames.add(name, city.getId());
+        for (long gram : grams(name)) {
+            postings.computeIfAbsent(gram, key -> new PostingList()).add(city.getId());
+        }
+    }
+
+    private void unindex(Long id, String name) {
+        fuzzyNames.remove(name, id);
+        for (long gram : grams(name)) {
+            var posting = postings.get(gram);
+            posting.remove(id);
+            if (posting.size == 0) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private static String suggestionKey(String name, Long id) {
+        return name + SUGGESTION_KEY_SEPARATOR + id;
+    }
+
+    private static String normalize(String name) {
+        return name == null ? "" : NameNormalizer.normalize(name);
+    }
+
+    /**
+     * Packs each distinct run of three chars into one long, 16 bits per char.
+     */
+    private static Set<Long> grams(String name) {
+        var grams = new HashSet<Long>();
+        for (int i = 0; i + GRAM_SIZE <= name.length(); i++) {
+            grams.add(((long) name.charAt(i) << 32) | ((long) name.charAt(i + 1) << 16) | name.charAt(i + 2));
+        }
+        return grams;
+    }
+
+    /**
+     * Sorted city ids in a plain array. Ids mostly arrive in ascending order, so adding is usually an append.
+     */
+    private static class PostingList {
+        private long[] ids = new long[2];
+        private int size;
+
+        void add(long id) {
+            var index = size == 0 || ids[size - 1] < id ? -(size + 1) : Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            var insertionPoint = -(index + 1);
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, insertionPoint, ids, insertionPoint + 1, size - insertionPoint);
+            ids[insertionPoint] = id;
+            size++;
+        }
+
+        void remove(long id) {
+            var index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.service.service;
+
+import com.example.service.config.ListingProperties;
+import com.example.service.dto.CitiesPaginationResponse;
+import com.example.service.entity.CityEntity;
+import com.example.service.utils.BkTree;
+import com.example.service.utils.NameNormalizer;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import lombok.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the responses of the paged listings and searches. A change of a city evicts only the entries it can alter.
+ */
+@Component
+public class CityPageCache {
+
+    private static final String CACHE_NAME = "city-pages";
+
+    private final Cache<PageKey, CitiesPaginationResponse> cache;
+    private final CityNameIndex cityNameIndex;
+    private final int fuzzyMaxEditDistance;
+    private final AtomicLong generation = new AtomicLong();
+
+    public CityPageCache(ListingProperties properties, CityNameIndex cityNameIndex, MeterRegistry meterRegistry) {
+        this.cityNameIndex = cityNameIndex;
+        this.fuzzyMaxEditDistance = properties.getFuzzyMaxEditDistance();
+        this.cache = CacheBuilder.newBuilder()
+                .expireAfterWrite(properties.getPageCacheTtl())
+                .maximumSize(properties.getPageCacheMaxSize())
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public CitiesPaginationResponse get(Listing listing, int page, String name,
+            Supplier<CitiesPaginationResponse> loader) {
+        // the DB answers the searches until the name index is built and orders them differently, so keep them apart
+        var key = new PageKey(listing, page, NameNormalizer.normalize(Objects.requireNonNullElse(name, "")),
+                listing != Listing.PAGE && cityNameIndex.isReady());
+        var response = cache.getIfPresent(key);
+        if (response == null) {
+            var loadedGeneration = generation.get();
+            response = loader.get();
+            // a response loaded while a city changed may miss the change, so it is served but not kept
+            if (generation.get() == loadedGeneration) {
+                cache.put(key, response);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Evicts the entries listing the city, for a change that keeps its name.
+     */
+    public void invalidate(Long id) {
+        generation.incrementAndGet();
+        cache.asMap().entrySet().removeIf(entry -> lists(entry.getValue(), id));
+    }
+
+    /**
+     * Evicts the entries an update of the city can alter.
+     */
+    public void invalidate(CityEntity previous, CityEntity updated) {
+        var previousName = NameNormalizer.normalize(previous.getName());
+        var updatedName = NameNormalizer.normalize(updated.getName());
+        if (Objects.equals(previousName, updatedName)) {
+            invalidate(updated.getId());
+            return;
+        }
+        generation.incrementAndGet();
+        cache.asMap().entrySet().removeIf(entry -> lists(entry.getValue(), updated.getId()) ||
+                matches(entry.getKey(), previousName) || matches(entry.getKey(), updatedName));
+    }
+
+    /**
+     * Added cities may show up on any page.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    private static boolean lists(CitiesPaginationResponse response, Long id) {
+        return response.getCities().stream().anyMatch(city -> Objects.equals(city.getId(), id));
+    }
+
+    private boolean matches(PageKey key, String name) {
+        if (name == null || key.getListing() == Listing.PAGE) {
+            // the plain listing is not ordered by name, so a rename does not move any city on it
+            return false;
+        }
+        // the fuzzy search falls back to the plain search until the name index is built
+        return name.contains(key.getName()) || key.getListing() == Listing.FUZZY_SEARCH &&
+                BkTree.distance(key.getName(), name) <= fuzzyMaxEditDistance;
+    }
+
+    public enum Listing {
+        PAGE,
+        SEARCH,
+        FUZZY_SEARCH
+    }
+
+    @Value
+    private static class PageKey {
+        Listing listing;
+        int page;
+        String name;
+        boolean indexed;
+    }
+}
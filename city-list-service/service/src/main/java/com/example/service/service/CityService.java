@@ -1,20 +1,35 @@
 package com.example.service.service;
 
+import com.example.service.dto.CitiesCursorResponse;
 import com.example.service.dto.CitiesPaginationResponse;
+import com.example.service.dto.CitiesSliceResponse;
+import com.example.service.dto.CityImage;
 import com.example.service.dto.CityResponse;
+import com.example.service.dto.CitySuggestion;
 import com.example.service.dto.CityUpdateRequest;
 import java.io.IOException;
-import java.io.InputStream;
-import java.util.concurrent.ExecutionException;
+import java.util.List;
 import org.springframework.web.multipart.MultipartFile;
 
 public interface CityService {
 
-    InputStream getImageById(Long imageName) throws IOException;
+    CityImage getImageById(Long imageName, Integer width) throws IOException;
 
     CityResponse update(Long id, MultipartFile image, CityUpdateRequest cityProperties) throws IOException;
 
-    CitiesPaginationResponse getCitiesByPage(int page) throws IOException, ExecutionException, InterruptedException;
+    CitiesPaginationResponse getCitiesByPage(int page);
 
     CitiesPaginationResponse getCitiesByPageAndName(Integer page, String name);
+
+    CitiesPaginationResponse getCitiesByPageAndSimilarName(Integer page, String name);
+
+    CitiesSliceResponse getCitiesSliceByPage(int page);
+
+    CitiesSliceResponse getCitiesSliceByPageAndName(Integer page, String name);
+
+    CitiesCursorResponse getCitiesAfter(String cursor);
+
+    CitiesCursorResponse getCitiesByNameAfter(String cursor, String name);
+
+    List<CitySuggestion> suggestCities(String prefix);
 }
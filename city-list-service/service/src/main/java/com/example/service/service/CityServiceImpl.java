@@ -1,21 +1,42 @@
 package com.example.service.service;
 
+import com.example.service.config.ImageProperties;
+import com.example.service.config.ListingProperties;
+import com.example.service.dto.CitiesCursorResponse;
 import com.example.service.dto.CitiesPaginationResponse;
+import com.example.service.dto.CitiesSliceResponse;
+import com.example.service.dto.CityCursor;
+import com.example.service.dto.CityImage;
 import com.example.service.dto.CityResponse;
+import com.example.service.dto.CitySuggestion;
 import com.example.service.dto.CityUpdateRequest;
 import com.example.service.entity.CityEntity;
 import com.example.service.exception.CityNotFoundException;
 import com.example.service.exception.ImageNotFoundException;
+import com.example.service.exception.InvalidCursorException;
+import com.example.service.exception.InvalidImageWidthException;
 import com.example.service.exception.InvalidPageNumberException;
 import com.example.service.mapper.CityMapper;
 import com.example.service.repository.CityRepository;
 import com.example.service.utils.FileManager;
+import com.example.service.utils.NameNormalizer;
 import java.io.IOException;
-import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -25,7 +46,16 @@ import org.springframework.web.multipart.MultipartFile;
 public class CityServiceImpl implements CityService {
 
     public static final int PAGE_SIZE = 12;
+    public static final int SUGGESTION_LIMIT = 10;
+    private static final String PLACEHOLDER_IMAGE = "placeholder.jpg";
     private final CityRepository repository;
+    private final CityImageStore imageStore;
+    private final CityImageCache imageCache;
+    private final CityCountCache countCache;
+    private final CityPageCache pageCache;
+    private final CityNameIndex cityNameIndex;
+    private final ImageProperties imageProperties;
+    private final ListingProperties listingProperties;
 
     @Override
     public CityResponse update(Long id, MultipartFile image, CityUpdateRequest cityProperties) throws IOException {
@@ -34,53 +64,226 @@ public class CityServiceImpl implements CityService {
             throw new CityNotFoundException(id);
         }
 
-        String imagePath = cityEntityById.get().getImagePath();
+        var currentEntity = cityEntityById.get();
+        String currentImagePath = currentEntity.getImagePath();
+        CityEntity savedEntity;
         if (image != null && !image.isEmpty()) {
-            imagePath = FileManager.saveImageToFileStorage(image.getBytes(), cityProperties.getName());
-            FileManager.deleteImage(cityEntityById.get().getImagePath());
+            savedEntity = imageStore.store(image.getBytes(), imagePath ->
+                    repository.save(CityMapper.updateRequestToEntity(currentEntity, imagePath, cityProperties)));
         } else {
             log.warn("New image body was empty. id = {}", id);
+            savedEntity = repository.save(CityMapper.updateRequestToEntity(currentEntity, currentImagePath,
+                    cityProperties));
         }
 
-        var cityEntity = CityMapper.updateRequestToEntity(id, imagePath, cityProperties);
-        var cityResponse = CityMapper.entityToResponse(repository.save(cityEntity));
+        var imagePath = savedEntity.getImagePath();
+        var cityResponse = CityMapper.entityToResponse(savedEntity);
+        imageCache.invalidate(id);
+        countCache.invalidateAll();
+        pageCache.invalidate(currentEntity, savedEntity);
+        cityNameIndex.put(savedEntity);
+        if (currentImagePath != null && !currentImagePath.equals(imagePath)) {
+            imageStore.release(currentImagePath);
+        }
         log.info("Updated the city by id = {}", cityResponse.getId());
         return cityResponse;
     }
 
     @Override
-    public InputStream getImageById(Long id) {
+    public CityImage getImageById(Long id, Integer width) {
+        var imageWidth = resolveImageWidth(width);
+        return imageCache.get(id, imageWidth, () -> loadImage(id, imageWidth));
+    }
+
+    private CityImage loadImage(Long id, int imageWidth) {
         Optional<CityEntity> city = repository.findById(id);
         if (city.isEmpty()) {
             throw new CityNotFoundException(id);
         }
+        if (!city.get().isImageReady()) {
+            return new CityImage(new ClassPathResource(PLACEHOLDER_IMAGE), null, 0, true);
+        }
 
+        var imagePath = FileManager.resolveImagePath(city.get().getImagePath(), imageWidth);
         try {
-            return FileManager.loadImageByPath(city.get().getImagePath());
+            var image = FileManager.loadImageByPath(imagePath);
+            // validators come from the content hash in the file name or from file attributes, never from the file body
+            var lastModified = image.lastModified();
+            var eTag = FileManager.getImageHash(imagePath)
+                    .orElse(String.format("%x-%x", image.contentLength(), lastModified));
+            return new CityImage(image, eTag, lastModified);
         } catch (IOException ex) {
-            throw new ImageNotFoundException(city.get().getImagePath(), ex);
+            throw new ImageNotFoundException(imagePath, ex);
         }
     }
 
     @Override
     public CitiesPaginationResponse getCitiesByPage(int page) {
+        return pageCache.get(CityPageCache.Listing.PAGE, page, "", () -> findCitiesByPage(page));
+    }
+
+    @Override
+    public CitiesPaginationResponse getCitiesByPageAndName(Integer page, String name) {
+        return pageCache.get(CityPageCache.Listing.SEARCH, page, name, () -> findCitiesByPageAndName(page, name));
+    }
+
+    @Override
+    public CitiesPaginationResponse getCitiesByPageAndSimilarName(Integer page, String name) {
+        return pageCache.get(CityPageCache.Listing.FUZZY_SEARCH, page, name,
+                () -> findCitiesByPageAndSimilarName(page, name));
+    }
+
+    private CitiesPaginationResponse findCitiesByPage(int page) {
         var pageRequest = generatePageRequest(page);
-        var cityPageEntity = repository.findAll(pageRequest);
-        var pageResponse = CityMapper.pageEntityToPageResponse(cityPageEntity);
+        var citySlice = repository.findResponseSliceBy(pageRequest);
+        var cityPage = PageableExecutionUtils.getPage(citySlice.getContent(), pageRequest,
+                () -> countCache.get("", repository::count));
+        var pageResponse = CityMapper.pageToPageResponse(cityPage);
         log.info("Retrieved cities by page = {}. resultSize = {}", page, pageResponse.getCities().size());
         return pageResponse;
     }
 
-
-    @Override
-    public CitiesPaginationResponse getCitiesByPageAndName(Integer page, String name) {
+    private CitiesPaginationResponse findCitiesByPageAndName(Integer page, String name) {
         var pageRequest = generatePageRequest(page);
-        var cityPageEntity = repository.findAllByNameIsContainingIgnoreCase(name, pageRequest);
-        var pageResponse = CityMapper.pageEntityToPageResponse(cityPageEntity);
+        var matchingIds = cityNameIndex.findIdsContaining(name);
+        Page<CityResponse> cityPage;
+        if (matchingIds.isPresent()) {
+            cityPage = new PageImpl<>(findCitiesOfPage(matchingIds.get(), pageRequest), pageRequest,
+                    matchingIds.get().size());
+        } else {
+            var searchName = NameNormalizer.normalize(name);
+            var citySlice = repository.findResponseSliceBySearchNameContaining(searchName, pageRequest);
+            cityPage = PageableExecutionUtils.getPage(citySlice.getContent(), pageRequest,
+                    () -> countCache.get(name, () -> repository.countBySearchNameContaining(searchName)));
+        }
+        var pageResponse = CityMapper.pageToPageResponse(cityPage);
         log.info("Retrieved cities by page = {} and name = {}. resultSize = {}", page, name, pageResponse.getCities().size());
         return pageResponse;
     }
 
+    /**
+     * Falls back to the plain search until the name index is built.
+     */
+    private CitiesPaginationResponse findCitiesByPageAndSimilarName(Integer page, String name) {
+        var pageRequest = generatePageRequest(page);
+        var matchingIds = cityNameIndex.findIdsSimilarTo(name, listingProperties.getFuzzyMaxEditDistance());
+        if (matchingIds.isEmpty()) {
+            return findCitiesByPageAndName(page, name);
+        }
+        var cityPage = new PageImpl<>(findCitiesOfPage(matchingIds.get(), pageRequest), pageRequest,
+                matchingIds.get().size());
+        var pageResponse = CityMapper.pageToPageResponse(cityPage);
+        log.info("Retrieved cities by page = {} and similar name = {}. resultSize = {}", page, name,
+                pageResponse.getCities().size());
+        return pageResponse;
+    }
+
+    @Override
+    public CitiesSliceResponse getCitiesSliceByPage(int page) {
+        var citySlice = repository.findResponseSliceBy(generatePageRequest(page));
+        var sliceResponse = CityMapper.sliceToSliceResponse(citySlice);
+        log.info("Retrieved cities by slice = {}. resultSize = {}", page, sliceResponse.getCities().size());
+        return sliceResponse;
+    }
+
+    @Override
+    public CitiesSliceResponse getCitiesSliceByPageAndName(Integer page, String name) {
+        var pageRequest = generatePageRequest(page);
+        var matchingIds = cityNameIndex.findIdsContaining(name);
+        Slice<CityResponse> citySlice;
+        if (matchingIds.isPresent()) {
+            citySlice = new SliceImpl<>(findCitiesOfPage(matchingIds.get(), pageRequest), pageRequest,
+                    matchingIds.get().size() > pageRequest.getOffset() + pageRequest.getPageSize());
+        } else {
+            citySlice = repository.findResponseSliceBySearchNameContaining(NameNormalizer.normalize(name),
+                    pageRequest);
+        }
+        var sliceResponse = CityMapper.sliceToSliceResponse(citySlice);
+        log.info("Retrieved cities by slice = {} and name = {}. resultSize = {}", page, name, sliceResponse.getCities().size());
+        return sliceResponse;
+    }
+
+    @Override
+    public CitiesCursorResponse getCitiesAfter(String cursor) {
+        var position = cursor == null ? null : CityCursor.decode(cursor);
+        if (position != null && position.getName() != null) {
+            throw new InvalidCursorException(cursor);
+        }
+        var cities = repository.findByIdGreaterThanOrderById(position == null ? 0L : position.getId(),
+                PageRequest.ofSize(PAGE_SIZE + 1));
+        var cursorResponse = toCursorResponse(cities, false);
+        log.info("Retrieved cities after cursor = {}. resultSize = {}", cursor, cursorResponse.getCities().size());
+        return cursorResponse;
+    }
+
+    @Override
+    public CitiesCursorResponse getCitiesByNameAfter(String cursor, String name) {
+        var position = cursor == null ? null : CityCursor.decode(cursor);
+        if (position != null && position.getName() == null) {
+            throw new InvalidCursorException(cursor);
+        }
+        // the first page starts before every name
+        var cities = repository.findByNameContainingAfter(NameNormalizer.normalize(name),
+                position == null ? "" : position.getName(), position == null ? 0L : position.getId(),
+                PageRequest.ofSize(PAGE_SIZE + 1));
+        var cursorResponse = toCursorResponse(cities, true);
+        log.info("Retrieved cities after cursor = {} and name = {}. resultSize = {}", cursor, name,
+                cursorResponse.getCities().size());
+        return cursorResponse;
+    }
+
+    @Override
+    public List<CitySuggestion> suggestCities(String prefix) {
+        if (prefix.isBlank()) {
+            return List.of();
+        }
+        return cityNameIndex.findStartingWith(prefix, SUGGESTION_LIMIT)
+                .orElseGet(() -> repository.findBySearchNameStartingWithOrderBySearchName(
+                                NameNormalizer.normalize(prefix), PageRequest.ofSize(SUGGESTION_LIMIT)).stream()
+                        .map(city -> new CitySuggestion(city.getId(), city.getName()))
+                        .toList());
+    }
+
+    private CitiesCursorResponse toCursorResponse(List<CityEntity> cities, boolean orderedByName) {
+        if (cities.size() <= PAGE_SIZE) {
+            return new CitiesCursorResponse(CityMapper.entityListToResponseList(cities), null);
+        }
+        var page = cities.subList(0, PAGE_SIZE);
+        var last = page.get(PAGE_SIZE - 1);
+        var next = new CityCursor(last.getId(), orderedByName ? last.getName() : null);
+        return new CitiesCursorResponse(CityMapper.entityListToResponseList(page), next.encode());
+    }
+
+    private List<CityResponse> findCitiesOfPage(List<Long> ids, Pageable pageable) {
+        var fromIndex = (int) Math.min(pageable.getOffset(), ids.size());
+        var toIndex = Math.min(fromIndex + pageable.getPageSize(), ids.size());
+        if (fromIndex == toIndex) {
+            return List.of();
+        }
+        var pageIds = ids.subList(fromIndex, toIndex);
+        Map<Long, CityResponse> citiesById = repository.findResponsesByIdIn(pageIds).stream()
+                .collect(Collectors.toMap(CityResponse::getId, Function.identity()));
+        return pageIds.stream()
+                .map(citiesById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * 0 stands for the original image.
+     */
+    private int resolveImageWidth(Integer width) {
+        if (width == null) {
+            return 0;
+        } else if (width < 1) {
+            throw new InvalidImageWidthException(width);
+        }
+        return imageProperties.getDerivativeWidths().stream()
+                .filter(derivativeWidth -> derivativeWidth >= width)
+                .min(Integer::compare)
+                .orElse(0);
+    }
+
     private PageRequest generatePageRequest(int page) {
         if (page < 1) {
             throw new InvalidPageNumberException(page);
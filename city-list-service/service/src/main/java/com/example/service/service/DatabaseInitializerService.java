@@ -1,17 +1,32 @@
 package com.example.service.service;
 
+import com.example.service.config.ImportProperties;
+import com.example.service.dto.CityRecord;
 import com.example.service.entity.CityEntity;
-import com.example.service.exception.ImageNotFoundException;
+import com.example.service.entity.ImageStatus;
+import com.example.service.repository.CityBulkLoader;
 import com.example.service.repository.CityRepository;
 import com.example.service.utils.FileManager;
+import com.example.service.utils.NameNormalizer;
+import com.google.common.collect.Iterators;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 
 @Slf4j
@@ -20,71 +35,162 @@ import org.springframework.stereotype.Component;
 public class DatabaseInitializerService {
 
     private static final int CITY_IMPORT_BATCH_SIZE = 50;
+    private static final String IMPORT_JOB_THREAD_NAME_PREFIX = "city-import-job-";
     private final CityRepository cityRepository;
-    private final WikimediaRestClientService restClient;
+    private final CityBulkLoader cityBulkLoader;
+    private final CityImageImporter cityImageImporter;
+    private final CityCountCache countCache;
+    private final CityPageCache pageCache;
+    private final CityNameIndex cityNameIndex;
+    private final ImportProperties importProperties;
+    private final ThreadPoolTaskExecutor cityImportExecutor;
 
-    private static boolean dbInitializationTriggered = false;
+    @Getter
+    private volatile ImportState state = ImportState.PENDING;
+    @Getter
+    private volatile int totalCities;
+    /**
+     * Why the import failed, reported by the readiness check.
+     */
+    @Getter
+    private volatile Throwable failure;
+    private final AtomicInteger importedCities = new AtomicInteger();
+    private final AtomicInteger skippedCities = new AtomicInteger();
 
+    /**
+     * Starts the import in the background once the application is up, so no request ever waits for it.
+     * The job waits for its batches, so it runs on its own thread and not on the bounded import executor.
+     * The search names are backfilled even when the import is disabled, as the search needs them either way.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void importOnStartup() {
+        new SimpleAsyncTaskExecutor(IMPORT_JOB_THREAD_NAME_PREFIX).execute(this::runImport);
+    }
+
+    private void runImport() {
+        try {
+            backfillSearchNames();
+            if (!importProperties.isEnabled()) {
+                state = ImportState.DISABLED;
+                log.info("DB initialization is disabled.");
+                return;
+            }
+            initializeDB();
+        } catch (InterruptedException e) {
+            failure = e;
+            state = ImportState.FAILED;
+            log.warn("DB initialization interrupted after {} of {} cities, {} skipped.",
+                    importedCities.get(), totalCities, skippedCities.get());
+            Thread.currentThread().interrupt();
+            return;
+        } catch (IOException | ExecutionException | RuntimeException e) {
+            failure = e instanceof ExecutionException ? e.getCause() : e;
+            state = ImportState.FAILED;
+            log.error("DB initialization failed.", e);
+            return;
+        }
+        // the cities are already listed, their images follow in the background
+        cityImageImporter.importPendingImages();
+    }
+
+    /**
+     * Reads the city list as a stream and hands it to the import executor batch by batch while reading goes on.
+     * At most threads + queue-capacity batches are in flight, so memory use does not depend on the file size.
+     * Every imported city keeps the id of its source row, so a restarted import only fetches the rows that are
+     * still missing, including the ones that failed before.
+     */
     public void initializeDB() throws IOException, ExecutionException, InterruptedException {
-        if (!dbInitializationTriggered && cityRepository.count() == 0) {
-            dbInitializationTriggered = true;
+        state = ImportState.RUNNING;
+        if (cityRepository.count() > 0 && !cityRepository.existsBySourceIdIsNotNull()) {
+            log.info("DB was initialized before source ids were recorded, import is skipped.");
+        } else {
             log.info("DB initialization started.");
-            var exportedCityList = FileManager.readDataFromCsvFile();
-            var exportedCityListSize = exportedCityList.size();
-            var exportedCityListPageNumbers = exportedCityListSize % CITY_IMPORT_BATCH_SIZE == 0 ?
-                    (exportedCityListSize / CITY_IMPORT_BATCH_SIZE) : (exportedCityListSize / CITY_IMPORT_BATCH_SIZE + 1);
+            var maxBatchesInFlight = importProperties.getThreads() + importProperties.getQueueCapacity();
+            var batchesInFlight = new Semaphore(maxBatchesInFlight);
+            var batchFailure = new AtomicReference<Throwable>();
 
-            List<CompletableFuture<Void>> executableCityImportTasks = new ArrayList<>();
-            for (int i = 1; i <= exportedCityListPageNumbers; i++) {
-                // get 50 of 1000 Exported Cities
-                var citiesSublist = getSubList(exportedCityList, i);
-                executableCityImportTasks.add(CompletableFuture.runAsync(() -> saveToDB(citiesSublist)));
+            try (Stream<CityRecord> cities = FileManager.readCitiesFromCsvFile()) {
+                Iterator<List<CityRecord>> batches = Iterators.partition(cities.iterator(), CITY_IMPORT_BATCH_SIZE);
+                while (batchFailure.get() == null && batches.hasNext()) {
+                    var batch = batches.next();
+                    totalCities += batch.size();
+                    batchesInFlight.acquire();
+                    CompletableFuture.runAsync(() -> saveToDB(batch), cityImportExecutor)
+                            .whenComplete((result, e) -> {
+                                if (e != null) {
+                                    batchFailure.compareAndSet(null, e);
+                                }
+                                batchesInFlight.release();
+                            });
+                }
+            } finally {
+                // wait for the batches still running
+                batchesInFlight.acquire(maxBatchesInFlight);
             }
 
-            CompletableFuture<Void> allFutures = CompletableFuture
-                    .allOf(executableCityImportTasks.toArray(new CompletableFuture[executableCityImportTasks.size()]));
-
-            allFutures.get();
+            if (batchFailure.get() != null) {
+                throw new ExecutionException(batchFailure.get());
+            }
             log.info("DB initialization completed.");
         }
+        state = ImportState.COMPLETED;
+    }
+
+    /**
+     * Gives the cities stored before the search key was introduced their key, so the search finds them.
+     */
+    private void backfillSearchNames() {
+        List<CityEntity> cities;
+        var backfilledCities = 0;
+        do {
+            cities = cityRepository.findBySearchNameIsNullAndNameIsNotNull(PageRequest.ofSize(CITY_IMPORT_BATCH_SIZE));
+            cities.forEach(city -> city.setSearchName(NameNormalizer.normalize(city.getName())));
+            cityRepository.saveAll(cities);
+            backfilledCities += cities.size();
+        } while (!cities.isEmpty());
+        if (backfilledCities > 0) {
+            log.info("Search names backfilled: {}", backfilledCities);
+        }
     }
 
-    private void saveToDB(List<List<String>> citySublist) {
-        // map
-        List<CityEntity> cityEntityList = mapCityListToEntityList(citySublist);
+    public int getImportedCities() {
+        return importedCities.get();
+    }
 
-        // save to DB
-        List<CityEntity> cityEntities = cityRepository.saveAll(cityEntityList);
-        log.info("City list saved: {}", cityEntities.size());
+    public int getSkippedCities() {
+        return skippedCities.get();
     }
 
-    private List<CityEntity> mapCityListToEntityList(List<List<String>> cityList) {
-        List<CityEntity> cityEntities = new ArrayList<>();
-        for (List<String> city : cityList) {
-            try {
-                cityEntities.add(mapCityToEntity(city));
-            } catch (ImageNotFoundException e) {
-                log.error("Skipping the element. {}", e.getMessage());
-            }
+    private void saveToDB(List<CityRecord> citySublist) {
+        // skip the cities imported by an earlier run
+        var importedSourceIds = cityRepository.findSourceIdsIn(
+                citySublist.stream().map(CityRecord::getId).collect(Collectors.toList()));
+        List<CityEntity> cityEntityList = citySublist.stream()
+                .filter(city -> !importedSourceIds.contains(city.getId()))
+                .map(this::mapCityToEntity)
+                .collect(Collectors.toList());
+        skippedCities.addAndGet(citySublist.size() - cityEntityList.size());
+        if (cityEntityList.isEmpty()) {
+            return;
         }
-        return cityEntities;
-    }
 
-    private CityEntity mapCityToEntity(List<String> city) throws ImageNotFoundException {
-        byte[] image = restClient.fetchImage(city.get(2));
-        var imagePath = FileManager.saveImageToFileStorage(image, city.get(1));
+        // save to DB
+        var savedCities = cityBulkLoader.insertAll(cityEntityList);
+        importedCities.addAndGet(savedCities);
+        countCache.invalidateAll();
+        pageCache.invalidateAll();
+        cityNameIndex.putAll(cityEntityList);
+        log.info("City list saved: {}", savedCities);
+    }
 
+    private CityEntity mapCityToEntity(CityRecord city) {
+        // the image is downloaded later by the CityImageImporter
         var cityEntity = new CityEntity();
-        cityEntity.setName(city.get(1));
-        cityEntity.setImagePath(imagePath);
+        cityEntity.setName(city.getName());
+        cityEntity.setSearchName(NameNormalizer.normalize(city.getName()));
+        cityEntity.setSourceId(city.getId());
+        cityEntity.setSourceImageUrl(city.getPhotoUrl());
+        cityEntity.setImageStatus(ImageStatus.PENDING);
         return cityEntity;
     }
-
-    private List<List<String>> getSubList(List<List<String>> cities, Integer page) {
-        int fromIndex = (page - 1) * CITY_IMPORT_BATCH_SIZE;
-        if (cities == null || cities.size() <= fromIndex) {
-            return Collections.emptyList();
-        }
-        return cities.subList(fromIndex, Math.min(fromIndex + CITY_IMPORT_BATCH_SIZE, cities.size()));
-    }
 }
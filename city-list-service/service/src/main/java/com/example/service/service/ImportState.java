@@ -0,0 +1,9 @@
+package com.example.service.service;
+
+public enum ImportState {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    DISABLED
+}
@@ -0,0 +1,98 @@
+package com.example.service.service;
+
+import com.example.service.config.WikimediaApiProperties;
+import com.google.common.base.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stops calling Wikimedia after a run of consecutive failures. Once the open duration has passed,
+ * a single trial call is let through: its success closes the breaker, its failure opens it again.
+ */
+@Slf4j
+@Component
+public class WikimediaCircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private static final String STATE_METRIC = "wikimedia.circuitbreaker.state";
+    private static final String REJECTED_CALLS_METRIC = "wikimedia.circuitbreaker.rejected";
+
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final Ticker ticker;
+    private final Counter rejectedCalls;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialCallInFlight;
+
+    @Autowired
+    public WikimediaCircuitBreaker(WikimediaApiProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, Ticker.systemTicker());
+    }
+
+    WikimediaCircuitBreaker(WikimediaApiProperties properties, MeterRegistry meterRegistry, Ticker ticker) {
+        this.failureThreshold = properties.getCircuitBreakerFailureThreshold();
+        this.openDurationNanos = properties.getCircuitBreakerOpenDuration().toNanos();
+        this.ticker = ticker;
+        this.rejectedCalls = meterRegistry.counter(REJECTED_CALLS_METRIC);
+        for (State gaugeState : State.values()) {
+            Gauge.builder(STATE_METRIC, this, circuitBreaker -> circuitBreaker.getState() == gaugeState ? 1 : 0)
+                    .tag("state", gaugeState.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+    }
+
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN && ticker.read() - openedAt >= openDurationNanos) {
+            state = State.HALF_OPEN;
+            trialCallInFlight = false;
+            log.info("Wikimedia circuit breaker is half-open, trying a call.");
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && !trialCallInFlight) {
+            trialCallInFlight = true;
+            return true;
+        }
+        rejectedCalls.increment();
+        return false;
+    }
+
+    /**
+     * Records a call that reached Wikimedia and got an answer, even if that answer was a client error.
+     */
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            log.info("Wikimedia circuit breaker is closed.");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialCallInFlight = false;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = ticker.read();
+            trialCallInFlight = false;
+            log.warn("Wikimedia circuit breaker is open after {} consecutive failures.", consecutiveFailures);
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.service.service;
+
+import com.example.service.config.WikimediaApiProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps calls to Wikimedia within its rate limit: requests are spaced evenly at the allowed rate and a permit per
+ * host caps the number of requests in flight. Without an explicit rate, the limit carried in the auth token is used.
+ * Permits are handed out as futures, so a request waiting for one holds no thread.
+ */
+@Slf4j
+@Component
+public class WikimediaRequestLimiter {
+
+    // Wikimedia's limit for clients without a usable token
+    private static final double ANONYMOUS_REQUESTS_PER_HOUR = 500;
+
+    private final double requestsPerSecond;
+    private final long requestIntervalNanos;
+    private final int maxConcurrentRequestsPerHost;
+    private final Map<String, HostPermits> hostPermits = new ConcurrentHashMap<>();
+    private long nextRequestNanos = System.nanoTime();
+
+    public WikimediaRequestLimiter(WikimediaApiProperties properties, ObjectMapper objectMapper) {
+        this.requestsPerSecond = properties.getRequestsPerSecond() > 0 ?
+                properties.getRequestsPerSecond() : getTokenRequestsPerSecond(properties.getAuthToken(), objectMapper);
+        this.requestIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+        this.maxConcurrentRequestsPerHost = properties.getMaxConcurrentRequestsPerHost();
+        log.info("Wikimedia requests are limited to {} per second and {} concurrent per host.",
+                requestsPerSecond, maxConcurrentRequestsPerHost);
+    }
+
+    /**
+     * Completes once a permit of the host is taken and the rate allows the request. Every permit has to be given
+     * back with {@link #release(String)}.
+     */
+    public CompletableFuture<Void> acquire(String url) {
+        return getHostPermits(url).acquire().thenCompose(ignored -> {
+            var delayNanos = reserveRequest();
+            return delayNanos == 0 ? CompletableFuture.completedFuture(null) :
+                    CompletableFuture.runAsync(() -> { },
+                            CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    public void release(String url) {
+        getHostPermits(url).release();
+    }
+
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    /**
+     * Reserves the next free slot of the rate and returns how long to wait for it.
+     */
+    private synchronized long reserveRequest() {
+        var now = System.nanoTime();
+        var delayNanos = Math.max(0, nextRequestNanos - now);
+        nextRequestNanos = Math.max(nextRequestNanos, now) + requestIntervalNanos;
+        return delayNanos;
+    }
+
+    private HostPermits getHostPermits(String url) {
+        var host = String.valueOf(URI.create(url).getHost());
+        return hostPermits.computeIfAbsent(host, key -> new HostPermits(maxConcurrentRequestsPerHost));
+    }
+
+    private static double getTokenRequestsPerSecond(String authToken, ObjectMapper objectMapper) {
+        try {
+            var tokenParts = authToken.split("\\.");
+            if (tokenParts.length == 3) {
+                var payload = new String(Base64.getUrlDecoder().decode(tokenParts[1]), StandardCharsets.UTF_8);
+                JsonNode rateLimit = objectMapper.readTree(payload).path("ratelimit");
+                var requestsPerUnit = rateLimit.path("requests_per_unit").asDouble();
+                var unit = ChronoUnit.valueOf(rateLimit.path("unit").asText().toUpperCase() + "S");
+                if (requestsPerUnit > 0) {
+                    return requestsPerUnit / unit.getDuration().getSeconds();
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Could not read the rate limit from the auth token. {}", e.getMessage());
+        }
+        return ANONYMOUS_REQUESTS_PER_HOUR / ChronoUnit.HOURS.getDuration().getSeconds();
+    }
+
+    /**
+     * The permits of one host. Waiting requests are served in order; a released permit goes to the longest waiting.
+     */
+    private static final class HostPermits {
+
+        private final Queue<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+        private int available;
+
+        private HostPermits(int permits) {
+            this.available = permits;
+        }
+
+        private synchronized CompletableFuture<Void> acquire() {
+            if (available > 0) {
+                available--;
+                return CompletableFuture.completedFuture(null);
+            }
+            var waiter = new CompletableFuture<Void>();
+            waiters.add(waiter);
+            return waiter;
+        }
+
+        private void release() {
+            CompletableFuture<Void> waiter;
+            synchronized (this) {
+                waiter = waiters.poll();
+                if (waiter == null) {
+                    available++;
+                    return;
+                }
+            }
+            // completed outside the lock, as the waiter goes on to send its request from here
+            waiter.complete(null);
+        }
+    }
+}
@@ -1,27 +1,207 @@
 package com.example.service.service;
 
+import com.example.service.config.WikimediaApiProperties;
+import com.example.service.dto.DownloadedImage;
 import com.example.service.exception.ImageNotFoundException;
+import com.example.service.exception.WikimediaUnavailableException;
+import com.example.service.interceptor.HttpRequestInterceptor;
+import com.example.service.utils.FileManager;
+import com.example.service.utils.HashingFileBodySubscriber;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class WikimediaRestClientService {
 
-    private final RestTemplate wikimediaApiRestTemplate;
+    private static final String RETRIES_METRIC = "wikimedia.requests.retries";
 
-    public byte[] fetchImage(String imageUrl) {
+    private final HttpClient wikimediaHttpClient;
+    private final List<HttpRequestInterceptor> requestInterceptors;
+    private final WikimediaRequestLimiter requestLimiter;
+    private final WikimediaCircuitBreaker circuitBreaker;
+    private final WikimediaApiProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Fetches the image without holding a thread while it downloads. Timeouts, 429 and 5xx responses are retried
+     * with jittered exponential backoff or after the delay the server asks for in Retry-After; other client errors
+     * fail at once. The returned future fails with an {@link ImageNotFoundException}.
+     * The request is sent once the {@link WikimediaRequestLimiter} grants a permit; no thread waits for it.
+     * The body is streamed into a temporary file and hashed on the way; bodies larger than the configured maximum
+     * image size are cancelled and not retried. The caller owns the returned file.
+     */
+    public CompletableFuture<DownloadedImage> fetchImage(String imageUrl) {
+        return fetchImage(imageUrl, null, null, 1);
+    }
+
+    /**
+     * Fetches the image only if it changed since the given validators were sent with it, so an unchanged image costs
+     * a 304 response without a body. Completes empty when the image is unchanged; otherwise like
+     * {@link #fetchImage(String)}.
+     */
+    public CompletableFuture<Optional<DownloadedImage>> revalidateImage(String imageUrl, String etag,
+            String lastModified) {
+        return fetchImage(imageUrl, etag, lastModified, 1).thenApply(Optional::ofNullable);
+    }
+
+    private CompletableFuture<DownloadedImage> fetchImage(String imageUrl, String etag, String lastModified,
+            int attempt) {
+        HttpRequest request;
         try {
-            ResponseEntity<byte[]> response = wikimediaApiRestTemplate.getForEntity(imageUrl, byte[].class);
-            return response.getBody();
-        } catch (RestClientException e) {
+            request = createRequest(imageUrl, etag, lastModified);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(new ImageNotFoundException(imageUrl, e));
+        }
+        return requestLimiter.acquire(imageUrl).thenCompose(ignored -> {
+            // asked only now, as the breaker may have opened while the request waited for its permit
+            if (!circuitBreaker.tryAcquirePermission()) {
+                requestLimiter.release(imageUrl);
+                return CompletableFuture.failedFuture(
+                        new ImageNotFoundException(imageUrl, new WikimediaUnavailableException()));
+            }
+            return wikimediaHttpClient.sendAsync(request, this::createBodySubscriber)
+                    .handle((response, error) -> {
+                        requestLimiter.release(imageUrl);
+                        return handleResponse(imageUrl, etag, lastModified, attempt, response, error);
+                    })
+                    .thenCompose(Function.identity());
+        });
+    }
+
+    private HttpRequest createRequest(String imageUrl, String etag, String lastModified) {
+        var requestBuilder = HttpRequest.newBuilder(URI.create(imageUrl))
+                .timeout(Duration.ofMillis(properties.getReadTimeout()))
+                .GET();
+        if (etag != null) {
+            requestBuilder.header(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        if (lastModified != null) {
+            requestBuilder.header(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+        }
+        var request = requestBuilder.build();
+        for (HttpRequestInterceptor interceptor : requestInterceptors) {
+            request = interceptor.intercept(request);
+        }
+        return request;
+    }
+
+    private HttpResponse.BodySubscriber<DownloadedImage> createBodySubscriber(HttpResponse.ResponseInfo responseInfo) {
+        if (HttpStatus.Series.resolve(responseInfo.statusCode()) != HttpStatus.Series.SUCCESSFUL) {
+            return HttpResponse.BodySubscribers.replacing(null);
+        }
+        try {
+            return new HashingFileBodySubscriber(FileManager.createTempImageFile(),
+                    properties.getMaxImageSize().toBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private CompletableFuture<DownloadedImage> handleResponse(String imageUrl, String etag, String lastModified,
+            int attempt, HttpResponse<DownloadedImage> response, Throwable error) {
+        var failure = error instanceof CompletionException ? error.getCause() : error;
+        if (failure == null && HttpStatus.Series.resolve(response.statusCode()) == HttpStatus.Series.SUCCESSFUL) {
+            circuitBreaker.onSuccess();
+            return CompletableFuture.completedFuture(response.body()
+                    .withEtag(response.headers().firstValue(HttpHeaders.ETAG).orElse(null))
+                    .withLastModified(response.headers().firstValue(HttpHeaders.LAST_MODIFIED).orElse(null)));
+        }
+        if (failure == null && response.statusCode() == HttpStatus.NOT_MODIFIED.value()) {
+            circuitBreaker.onSuccess();
+            return CompletableFuture.completedFuture(null);
+        }
+
+        var cause = failure == null ?
+                new IOException(String.format("Unexpected response status %d", response.statusCode())) :
+                failure instanceof Exception exception ? exception : new IOException(failure);
+        var retryable = failure == null ? isRetryable(response.statusCode()) : failure instanceof IOException;
+        if (!retryable) {
+            circuitBreaker.onSuccess();
             log.info("Could not fetch image with url: {}", imageUrl);
-            throw new ImageNotFoundException(imageUrl, e);
+            return CompletableFuture.failedFuture(new ImageNotFoundException(imageUrl, cause));
+        }
+
+        circuitBreaker.onFailure();
+        var retryDelay = getRetryDelay(response, attempt);
+        if (attempt >= Math.max(1, properties.getMaxAttempts()) || retryDelay.isEmpty()) {
+            log.info("Could not fetch image with url: {} after {} attempts", imageUrl, attempt);
+            return CompletableFuture.failedFuture(new ImageNotFoundException(imageUrl, cause));
+        }
+        meterRegistry.counter(RETRIES_METRIC, "reason", failure == null ? String.valueOf(response.statusCode()) : "io")
+                .increment();
+        log.info("Retrying image url: {} in {} ms. {}", imageUrl, retryDelay.get().toMillis(), cause.getMessage());
+
+        // the retry only queues for its permit on the client thread; the request follows once the permit is granted
+        var retryExecutor = CompletableFuture.delayedExecutor(retryDelay.get().toMillis(), TimeUnit.MILLISECONDS,
+                wikimediaHttpClient.executor().orElse(ForkJoinPool.commonPool()));
+        return CompletableFuture.supplyAsync(() -> fetchImage(imageUrl, etag, lastModified, attempt + 1),
+                        retryExecutor)
+                .thenCompose(Function.identity());
+    }
+
+    private static boolean isRetryable(int statusCode) {
+        return statusCode == HttpStatus.TOO_MANY_REQUESTS.value() ||
+                HttpStatus.Series.resolve(statusCode) == HttpStatus.Series.SERVER_ERROR;
+    }
+
+    /**
+     * Returns empty when the server asks to wait longer than the maximum backoff; the import rather fails the image
+     * and retries it on the next run than keeps it waiting for that long.
+     */
+    private Optional<Duration> getRetryDelay(HttpResponse<DownloadedImage> response, int attempt) {
+        var retryAfter = getRetryAfter(response);
+        if (retryAfter.isPresent()) {
+            return retryAfter.filter(delay -> delay.compareTo(properties.getRetryMaxBackoff()) <= 0);
+        }
+        // full jitter: a random delay up to the exponential backoff keeps concurrent downloads from retrying in step
+        var backoffMillis = Math.min(properties.getRetryMaxBackoff().toMillis(),
+                properties.getRetryInitialBackoff().toMillis() << Math.min(attempt - 1, 30));
+        return Optional.of(Duration.ofMillis(ThreadLocalRandom.current().nextLong(backoffMillis + 1)));
+    }
+
+    private static Optional<Duration> getRetryAfter(HttpResponse<DownloadedImage> response) {
+        if (response == null) {
+            return Optional.empty();
+        }
+        var retryAfter = response.headers().firstValue(HttpHeaders.RETRY_AFTER);
+        if (retryAfter.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Duration.ofSeconds(Long.parseLong(retryAfter.get().trim())));
+        } catch (NumberFormatException ignored) {
+            // not delay-seconds, so it has to be an HTTP-date
+        }
+        try {
+            var retryAt = ZonedDateTime.parse(retryAfter.get().trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            var delay = Duration.between(ZonedDateTime.now(), retryAt);
+            return Optional.of(delay.isNegative() ? Duration.ZERO : delay);
+        } catch (DateTimeParseException ex) {
+            return Optional.empty();
         }
     }
 }
@@ -0,0 +1,120 @@
+package com.example.service.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.Value;
+
+/**
+ * Burkhard-Keller tree over strings with the Levenshtein distance. Every child hangs off its parent by its distance
+ * to it, so by the triangle inequality a search within k of the query only descends into the children whose edge is
+ * within k of the query's distance to the parent, and skips most of the tree.
+ * Several values may share a key. Removing the last value of a key keeps its node, as the node still routes the
+ * search to its children. Not thread-safe.
+ */
+public class BkTree<V> {
+
+    private Node<V> root;
+
+    public void add(String key, V value) {
+        if (root == null) {
+            root = new Node<>(key);
+        }
+        var node = root;
+        while (true) {
+            var distance = distance(key, node.key);
+            if (distance == 0) {
+                node.values.add(value);
+                return;
+            }
+            var child = node.children.get(distance);
+            if (child == null) {
+                child = new Node<>(key);
+                child.values.add(value);
+                node.children.put(distance, child);
+                return;
+            }
+            node = child;
+        }
+    }
+
+    public void remove(String key, V value) {
+        var node = root;
+        while (node != null) {
+            var distance = distance(key, node.key);
+            if (distance == 0) {
+                node.values.remove(value);
+                return;
+            }
+            node = node.children.get(distance);
+        }
+    }
+
+    /**
+     * Returns the keys within maxDistance of the query together with their values, in no particular order.
+     */
+    public List<Match<V>> search(String query, int maxDistance) {
+        var matches = new ArrayList<Match<V>>();
+        if (root == null) {
+            return matches;
+        }
+        var pending = new ArrayDeque<Node<V>>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            var node = pending.pop();
+            var distance = distance(query, node.key);
+            if (distance <= maxDistance && !node.values.isEmpty()) {
+                matches.add(new Match<>(node.key, distance, List.copyOf(node.values)));
+            }
+            for (var child : node.children.entrySet()) {
+                if (Math.abs(child.getKey() - distance) <= maxDistance) {
+                    pending.push(child.getValue());
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Levenshtein distance over two rows of the edit matrix.
+     */
+    public static int distance(String first, String second) {
+        var previous = new int[second.length() + 1];
+        var current = new int[second.length() + 1];
+        for (int j = 0; j <= second.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= first.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= second.length(); j++) {
+                var substitution = previous[j - 1] + (first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            var row = previous;
+            previous = current;
+            current = row;
+        }
+        return previous[second.length()];
+    }
+
+    @Value
+    public static class Match<V> {
+        String key;
+        int distance;
+        List<V> values;
+    }
+
+    private static class Node<V> {
+        private final String key;
+        private final Set<V> values = new LinkedHashSet<>();
+        private final Map<Integer, Node<V>> children = new HashMap<>();
+
+        private Node(String key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.service.utils;
+
+import com.example.service.entity.CityEntity;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Walks the cities table in id-ordered batches, as the image import and refresh do.
+ */
+public class CityBatches {
+
+    private CityBatches() {
+    }
+
+    /**
+     * Fetches the cities after the last id of the previous batch and starts the work for the cities of a batch,
+     * each once it gets one of the citiesInFlight permits. The next batch is fetched when that work completed, so
+     * only one batch is held at a time.
+     */
+    public static void forEachBatch(int batchSize, Semaphore citiesInFlight,
+            BiFunction<Long, Pageable, List<CityEntity>> batchFetcher,
+            Function<CityEntity, CompletableFuture<?>> cityProcessor) throws InterruptedException, ExecutionException {
+        List<CityEntity> cities;
+        long lastId = 0;
+        do {
+            cities = batchFetcher.apply(lastId, PageRequest.ofSize(batchSize));
+            var work = new ArrayList<CompletableFuture<?>>(cities.size());
+            for (CityEntity city : cities) {
+                citiesInFlight.acquire();
+                try {
+                    work.add(cityProcessor.apply(city).whenComplete((result, e) -> citiesInFlight.release()));
+                } catch (RuntimeException e) {
+                    citiesInFlight.release();
+                    throw e;
+                }
+            }
+            CompletableFuture.allOf(work.toArray(CompletableFuture[]::new)).get();
+            if (!cities.isEmpty()) {
+                lastId = cities.get(cities.size() - 1).getId();
+            }
+        } while (cities.size() == batchSize);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.service.utils;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads RFC 4180 records one at a time: quoted fields may contain commas, line breaks and doubled quotes.
+ * Records may end with CRLF, LF or CR, and blank lines are skipped.
+ */
+public class CsvReader implements Closeable {
+
+    private static final char DELIMITER = ',';
+    private static final char QUOTE = '"';
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+    private static final int END_OF_STREAM = -1;
+
+    private final PushbackReader reader;
+    private long lineNumber = 1;
+    private long recordLineNumber;
+    private boolean firstRecord = true;
+
+    public CsvReader(Reader reader) {
+        this.reader = new PushbackReader(new BufferedReader(reader), 1);
+    }
+
+    /**
+     * Returns the fields of the next record, or null at the end of the stream.
+     */
+    public List<String> readRecord() throws IOException {
+        List<String> fields;
+        do {
+            fields = readLine();
+        } while (fields != null && fields.size() == 1 && fields.get(0).isEmpty());
+        return fields;
+    }
+
+    /**
+     * Returns the line on which the last returned record started.
+     */
+    public long getLineNumber() {
+        return recordLineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private List<String> readLine() throws IOException {
+        int c = reader.read();
+        if (firstRecord) {
+            firstRecord = false;
+            if (c == BYTE_ORDER_MARK) {
+                c = reader.read();
+            }
+        }
+        if (c == END_OF_STREAM) {
+            return null;
+        }
+
+        recordLineNumber = lineNumber;
+        List<String> fields = new ArrayList<>();
+        var field = new StringBuilder();
+        var quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == END_OF_STREAM) {
+                    throw new IOException("Unterminated quoted field in the record at line " + recordLineNumber);
+                }
+                if (c == QUOTE) {
+                    int next = reader.read();
+                    if (next != QUOTE) {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                } else if (c == '\n') {
+                    lineNumber++;
+                }
+                field.append((char) c);
+            } else if (c == QUOTE && field.length() == 0) {
+                quoted = true;
+            } else if (c == DELIMITER) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == END_OF_STREAM) {
+                if (c == '\r') {
+                    skipLineFeed();
+                }
+                if (c != END_OF_STREAM) {
+                    lineNumber++;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+
+    private void skipLineFeed() throws IOException {
+        int next = reader.read();
+        if (next != '\n' && next != END_OF_STREAM) {
+            reader.unread(next);
+        }
+    }
+}
@@ -1,20 +1,39 @@
 package com.example.service.utils;
 
-import java.io.BufferedReader;
+import com.example.service.dto.CityRecord;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Streams;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 
 @Slf4j
 public class FileManager {
@@ -25,42 +44,250 @@ public class FileManager {
 
     private static final String CITIES_RESOURCE_FILE_NAME = "cities.csv";
     private static final String CITIES_STORAGE_FOLDER = "images/cities";
-    private static final String COMMA_DELIMITER = ",";
+    private static final int CITY_CSV_COLUMNS = 3;
+    private static final String IMAGE_EXTENSION = "jpg";
+    private static final Pattern IMAGE_HASH_PATTERN = Pattern.compile("[0-9a-f]{64}(_[0-9]+)?");
+    private static final Pattern DERIVATIVE_SUFFIX_PATTERN = Pattern.compile("[0-9]+\\." + IMAGE_EXTENSION);
 
-    public static List<List<String>> readDataFromCsvFile() throws IOException {
+    /**
+     * Streams the bundled city list one record at a time, so memory use does not grow with the file size.
+     * The stream holds the file open and must be closed. Records without all columns are logged and skipped.
+     */
+    public static Stream<CityRecord> readCitiesFromCsvFile() throws IOException {
         InputStream resourceAsStream = FileManager.class.getClassLoader().getResourceAsStream(CITIES_RESOURCE_FILE_NAME);
-        InputStreamReader streamReader = new InputStreamReader(resourceAsStream, StandardCharsets.UTF_8);
-
-        List<List<String>> cityList = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(streamReader)) {
-            br.readLine();
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] values = line.split(COMMA_DELIMITER);
-                cityList.add(Arrays.asList(values));
+        if (resourceAsStream == null) {
+            throw new FileNotFoundException(CITIES_RESOURCE_FILE_NAME);
+        }
+        return readCitiesFromCsv(new InputStreamReader(resourceAsStream, StandardCharsets.UTF_8));
+    }
+
+    public static Stream<CityRecord> readCitiesFromCsv(Reader reader) throws IOException {
+        var csvReader = new CsvReader(reader);
+        try {
+            // header
+            csvReader.readRecord();
+        } catch (IOException e) {
+            csvReader.close();
+            throw e;
+        }
+
+        Iterator<CityRecord> cities = new AbstractIterator<>() {
+            @Override
+            protected CityRecord computeNext() {
+                try {
+                    List<String> fields;
+                    while ((fields = csvReader.readRecord()) != null) {
+                        if (fields.size() >= CITY_CSV_COLUMNS) {
+                            return new CityRecord(fields.get(0), fields.get(1), fields.get(2));
+                        }
+                        log.warn("Skipping the malformed city record at line {}.", csvReader.getLineNumber());
+                    }
+                    return endOfData();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        return Streams.stream(cities).onClose(() -> {
+            try {
+                csvReader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public static Resource loadImageByPath(String path) throws IOException {
+        var image = new FileSystemResource(path);
+        if (!image.isReadable()) {
+            throw new FileNotFoundException(path);
+        }
+        return image;
+    }
+
+    /**
+     * Stores the image under the given SHA-256 of its content, so identical images share one file.
+     */
+    public static String saveImageToFileStorage(byte[] data, String imageHash) {
+        Path path = getImageStoragePath(imageHash);
+        try {
+            if (Files.notExists(path)) {
+                writeAtomically(path, data);
             }
+            return path.toAbsolutePath().toString();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
-        return cityList;
     }
 
-    public static InputStream loadImageByPath(String path) throws IOException {
-        File initialFile = new File(path);
-        return new FileInputStream(initialFile);
+    /**
+     * Creates an empty file next to the stored images for a download, so it can later be moved into place atomically.
+     */
+    public static Path createTempImageFile() throws IOException {
+        var storageFolder = Paths.get(CITIES_STORAGE_FOLDER);
+        Files.createDirectories(storageFolder);
+        return Files.createTempFile(storageFolder, "download-", ".tmp");
     }
 
-    public static String saveImageToFileStorage(byte[] data, String imageName) {
-        var imagePath = String.format("%s/%s_%s.jpg", CITIES_STORAGE_FOLDER, imageName, UUID.randomUUID());
-        Path path = Paths.get(imagePath);
+    /**
+     * Moves a downloaded image to its content-addressed name, or drops it when an identical image is already stored.
+     */
+    public static String moveImageToFileStorage(Path tempFile, String imageHash) {
+        Path path = getImageStoragePath(imageHash);
         try {
-            Files.createDirectories(path.getParent());
-            return Files.write(path, data).toAbsolutePath().toString();
+            if (Files.notExists(path)) {
+                Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return path.toAbsolutePath().toString();
         } catch (IOException e) {
             throw new RuntimeException(e);
+        } finally {
+            deleteTempFile(tempFile);
         }
     }
 
+    /**
+     * Creates downscaled copies of the image for every width smaller than the image itself.
+     * The image is decoded only when a derivative is missing; its width is read from the header first.
+     * A failure only means the original is served instead, so it is logged and not rethrown.
+     */
+    public static void saveImageDerivatives(String imagePath, List<Integer> widths) {
+        var missingWidths = widths.stream()
+                .filter(width -> Files.notExists(Paths.get(getDerivativePath(imagePath, width))))
+                .toList();
+        if (missingWidths.isEmpty()) {
+            return;
+        }
+        try {
+            var imageWidth = readImageWidth(new File(imagePath));
+            if (imageWidth.isEmpty()) {
+                log.warn("Image format is not supported, derivatives are skipped. path = {}", imagePath);
+                return;
+            }
+            var smallerWidths = missingWidths.stream().filter(width -> width < imageWidth.getAsInt()).toList();
+            if (smallerWidths.isEmpty()) {
+                return;
+            }
+            BufferedImage original = ImageIO.read(new File(imagePath));
+            if (original == null) {
+                log.warn("Image format is not supported, derivatives are skipped. path = {}", imagePath);
+                return;
+            }
+            for (Integer width : smallerWidths) {
+                writeAtomically(Paths.get(getDerivativePath(imagePath, width)), resizeToJpeg(original, width));
+            }
+        } catch (IOException e) {
+            log.warn("Could not create derivatives of image = {}. {}", imagePath, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the derivative of the given width when it exists, otherwise the original image path.
+     */
+    public static String resolveImagePath(String imagePath, int width) {
+        if (width > 0) {
+            var derivativePath = getDerivativePath(imagePath, width);
+            if (Files.exists(Paths.get(derivativePath))) {
+                return derivativePath;
+            }
+        }
+        return imagePath;
+    }
+
+    /**
+     * Returns the content-addressed name of an image or derivative, or empty for images stored under legacy names.
+     */
+    public static Optional<String> getImageHash(String filePath) {
+        var fileName = Paths.get(filePath).getFileName().toString();
+        var extension = "." + IMAGE_EXTENSION;
+        if (!fileName.endsWith(extension)) {
+            return Optional.empty();
+        }
+        var imageHash = fileName.substring(0, fileName.length() - extension.length());
+        return IMAGE_HASH_PATTERN.matcher(imageHash).matches() ? Optional.of(imageHash) : Optional.empty();
+    }
+
+    /**
+     * Deletes the image together with its derivatives.
+     */
     public static boolean deleteImage(String filePath) throws IOException {
-        Path pathToBeDeleted = Paths.get(filePath);
+        Path pathToBeDeleted = Paths.get(filePath).toAbsolutePath();
+        var derivativePrefix = getBaseName(pathToBeDeleted.getFileName().toString()) + "_";
+        DirectoryStream.Filter<Path> isDerivative = path -> {
+            var fileName = path.getFileName().toString();
+            return fileName.startsWith(derivativePrefix) &&
+                    DERIVATIVE_SUFFIX_PATTERN.matcher(fileName.substring(derivativePrefix.length())).matches();
+        };
+        if (Files.isDirectory(pathToBeDeleted.getParent())) {
+            try (var derivatives = Files.newDirectoryStream(pathToBeDeleted.getParent(), isDerivative)) {
+                for (Path derivative : derivatives) {
+                    Files.deleteIfExists(derivative);
+                }
+            }
+        }
         return Files.deleteIfExists(pathToBeDeleted);
     }
+
+    private static Path getImageStoragePath(String imageHash) {
+        return Paths.get(String.format("%s/%s.%s", CITIES_STORAGE_FOLDER, imageHash, IMAGE_EXTENSION));
+    }
+
+    private static void deleteTempFile(Path tempFile) {
+        try {
+            Files.deleteIfExists(tempFile);
+        } catch (IOException e) {
+            log.warn("Could not delete temporary file = {}. {}", tempFile, e.getMessage());
+        }
+    }
+
+    private static String getDerivativePath(String imagePath, int width) {
+        return String.format("%s_%d.%s", getBaseName(imagePath), width, IMAGE_EXTENSION);
+    }
+
+    private static String getBaseName(String fileName) {
+        var extensionIndex = fileName.lastIndexOf('.');
+        return extensionIndex > fileName.lastIndexOf(File.separatorChar) ? fileName.substring(0, extensionIndex) : fileName;
+    }
+
+    private static OptionalInt readImageWidth(File image) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(image)) {
+            var readers = input == null ? Collections.<ImageReader>emptyIterator() : ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return OptionalInt.empty();
+            }
+            var reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                return OptionalInt.of(reader.getWidth(0));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static byte[] resizeToJpeg(BufferedImage original, int width) throws IOException {
+        var height = Math.max(1, Math.round((float) original.getHeight() * width / original.getWidth()));
+        var resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(original, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        var jpeg = new ByteArrayOutputStream();
+        ImageIO.write(resized, IMAGE_EXTENSION, jpeg);
+        return jpeg.toByteArray();
+    }
+
+    /**
+     * Writes to a temporary file first and moves it into place, so readers never see a partial file.
+     */
+    private static void writeAtomically(Path path, byte[] data) throws IOException {
+        Files.createDirectories(path.getParent());
+        Path tempFile = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        Files.write(tempFile, data);
+        Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
 }
@@ -0,0 +1,104 @@
+package com.example.service.utils;
+
+import com.example.service.dto.DownloadedImage;
+import com.example.service.exception.ImageTooLargeException;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes a response body to a file as it arrives and hashes it on the way, so only the chunks in transit are
+ * held in memory. The download is cancelled and the file deleted once the body grows beyond the size limit.
+ */
+@Slf4j
+public class HashingFileBodySubscriber implements HttpResponse.BodySubscriber<DownloadedImage> {
+
+    private final Path file;
+    private final FileChannel channel;
+    private final long maxSize;
+    private final Hasher hasher = Hashing.sha256().newHasher();
+    private final CompletableFuture<DownloadedImage> result = new CompletableFuture<>();
+    private Flow.Subscription subscription;
+    private long size;
+
+    public HashingFileBodySubscriber(Path file, long maxSize) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public CompletionStage<DownloadedImage> getBody() {
+        return result;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> buffers) {
+        if (result.isDone()) {
+            return;
+        }
+        try {
+            for (ByteBuffer buffer : buffers) {
+                size += buffer.remaining();
+                if (size > maxSize) {
+                    subscription.cancel();
+                    fail(new ImageTooLargeException(maxSize));
+                    return;
+                }
+                hasher.putBytes(buffer.duplicate());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            subscription.request(1);
+        } catch (IOException e) {
+            subscription.cancel();
+            fail(e);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        fail(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        if (result.isDone()) {
+            return;
+        }
+        try {
+            channel.close();
+            result.complete(new DownloadedImage(file, hasher.hash().toString(), size));
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void fail(Throwable throwable) {
+        try {
+            channel.close();
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete the partial download = {}. {}", file, e.getMessage());
+        }
+        result.completeExceptionally(throwable);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.service.utils;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Folds a city name into the key it is searched by: compatibility-decomposed (NFKD), without diacritics and
+ * lowercased, so "São Paulo", "SAO PAULO" and "Sao Paulo" all share the key "sao paulo".
+ */
+public class NameNormalizer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private NameNormalizer() {
+    }
+
+    public static String normalize(String name) {
+        if (name == null) {
+            return null;
+        }
+        var decomposed = Normalizer.normalize(name, Normalizer.Form.NFKD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
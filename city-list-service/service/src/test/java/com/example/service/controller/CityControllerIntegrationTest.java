@@ -7,8 +7,11 @@ import com.example.service.dto.ErrorResponse;
 import com.example.service.entity.CityEntity;
 import com.example.service.exception.ImageNotFoundException;
 import com.example.service.repository.CityRepository;
+import com.example.service.service.CityNameIndex;
+import com.example.service.service.CityPageCache;
 import com.example.service.utils.FileManager;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.Hashing;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
@@ -52,6 +55,12 @@ class CityControllerIntegrationTest {
     @Autowired
     private CityRepository cityRepository;
 
+    @Autowired
+    private CityPageCache pageCache;
+
+    @Autowired
+    private CityNameIndex cityNameIndex;
+
     @Autowired
     private ObjectMapper objectMapper = new ObjectMapper();
 
@@ -75,7 +84,9 @@ class CityControllerIntegrationTest {
 
     @BeforeEach
     void setup() {
+        cityRepository.findAll().forEach(city -> cityNameIndex.remove(city.getId()));
         cityRepository.deleteAll();
+        pageCache.invalidateAll();
     }
 
 
@@ -84,7 +95,7 @@ class CityControllerIntegrationTest {
         // given
         var currentCityName = "city_name";
         var existentCityEntity = new CityEntity(null, currentCityName, imagePath);
-        var cityEntityInDB = cityRepository.save(existentCityEntity);
+        var cityEntityInDB = saveCity(existentCityEntity);
 
         var expectedCityResponse = new CityResponse(cityEntityInDB.getId(), cityName, "new_generated_path.jpg");
 
@@ -176,8 +187,8 @@ class CityControllerIntegrationTest {
     @Test
     void getImage_GivenValidDataId_ReturnsData() throws Exception {
         // given
-        var imagePath = FileManager.saveImageToFileStorage(image.getBytes(), cityName);
-        var cityEntityInDB = cityRepository.save(new CityEntity(null, cityName, imagePath));
+        var imagePath = FileManager.saveImageToFileStorage(image.getBytes(), Hashing.sha256().hashBytes(image.getBytes()).toString());
+        var cityEntityInDB = saveCity(new CityEntity(null, cityName, imagePath));
 
         // when
         var requestResult = mockMvc.perform(get(new URI(CITY_BASE_PATH + "/images/" + cityEntityInDB.getId())));
@@ -193,7 +204,7 @@ class CityControllerIntegrationTest {
     @Test
     void getImage_GivenImageNotFound_ReturnsErrorDto() throws Exception {
         // given
-        CityEntity cityEntity = cityRepository.save(new CityEntity(null, cityName, imagePath));
+        CityEntity cityEntity = saveCity(new CityEntity(null, cityName, imagePath));
         var errorMessage = String.format(IMAGE_NOT_FOUND_EXCEPTION_MESSAGE, imagePath);
         var expectedErrorResponse = ErrorResponse
                 .builder()
@@ -233,7 +244,7 @@ class CityControllerIntegrationTest {
         var cityEntity1 = new CityEntity(null, cityName, imagePath);
         var cityEntity2 = new CityEntity(null, cityName, imagePath);
         var cityEntityList = List.of(cityEntity1, cityEntity2);
-        cityRepository.saveAll(cityEntityList);
+        saveCities(cityEntityList);
 
         var expectedTotalPages = 1;
         var expectedCurrentPage = 1;
@@ -259,7 +270,7 @@ class CityControllerIntegrationTest {
     @Test
     void getByPage_GivenInvalidPageNumber_ReturnsErrorDto() throws Exception {
         // given
-        cityRepository.saveAll(List.of(new CityEntity(null, cityName, imagePath)));
+        saveCities(List.of(new CityEntity(null, cityName, imagePath)));
         var errorMessage = String.format(INVALID_PAGE_NUMBER_EXCEPTION_MESSAGE, invalidPageNumber);
         var expectedErrorResponse = ErrorResponse
                 .builder()
@@ -286,7 +297,7 @@ class CityControllerIntegrationTest {
         var cityEntity2 = new CityEntity(null, "ttallinNn", imagePath);
         var cityEntity3 = new CityEntity(null, "city with different name", imagePath);
         var cityEntityList = List.of(cityEntity1, cityEntity2, cityEntity3);
-        cityRepository.saveAll(cityEntityList);
+        saveCities(cityEntityList);
 
         var expectedTotalPages = 1;
         var expectedCurrentPage = 1;
@@ -345,5 +356,16 @@ class CityControllerIntegrationTest {
                 .isEqualTo(expected);
     }
 
+    // cities saved past the service are indexed the way the service and the import index them
+    private CityEntity saveCity(CityEntity city) {
+        var savedCity = cityRepository.save(city);
+        cityNameIndex.put(savedCity);
+        return savedCity;
+    }
 
+    private List<CityEntity> saveCities(List<CityEntity> cities) {
+        var savedCities = cityRepository.saveAll(cities);
+        cityNameIndex.putAll(savedCities);
+        return savedCities;
+    }
 }
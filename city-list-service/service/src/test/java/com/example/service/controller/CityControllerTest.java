@@ -1,16 +1,22 @@
 package com.example.service.controller;
 
+import com.example.service.config.ImageProperties;
+import com.example.service.dto.CitiesCursorResponse;
 import com.example.service.dto.CitiesPaginationResponse;
+import com.example.service.dto.CitiesSliceResponse;
+import com.example.service.dto.CityImage;
 import com.example.service.dto.CityResponse;
+import com.example.service.dto.CitySuggestion;
 import com.example.service.dto.CityUpdateRequest;
 import com.example.service.dto.ErrorResponse;
 import com.example.service.entity.CityEntity;
 import com.example.service.exception.CityNotFoundException;
 import com.example.service.exception.ImageNotFoundException;
+import com.example.service.exception.InvalidCursorException;
+import com.example.service.exception.InvalidImageWidthException;
 import com.example.service.exception.InvalidPageNumberException;
 import com.example.service.repository.CityRepository;
 import com.example.service.service.CityService;
-import com.example.service.service.DatabaseInitializerService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.io.InputStream;
@@ -20,8 +26,11 @@ import java.util.Optional;
 import org.assertj.core.api.ObjectAssert;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
@@ -31,17 +40,20 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import static com.example.service.exception.CityNotFoundException.CITY_NOT_FOUND_EXCEPTION_MESSAGE;
 import static com.example.service.exception.ImageNotFoundException.IMAGE_NOT_FOUND_EXCEPTION_MESSAGE;
+import static com.example.service.exception.InvalidCursorException.INVALID_CURSOR_EXCEPTION_MESSAGE;
+import static com.example.service.exception.InvalidImageWidthException.INVALID_IMAGE_WIDTH_EXCEPTION_MESSAGE;
 import static com.example.service.exception.InvalidPageNumberException.INVALID_PAGE_NUMBER_EXCEPTION_MESSAGE;
 import static com.example.service.utils.ValidationMessages.CITY_NAME_NOT_BLANK_VALIDATION_MESSAGE;
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(CityController.class)
+@EnableConfigurationProperties(ImageProperties.class)
 class CityControllerTest {
     private final static ObjectMapper objectMapper = new ObjectMapper();
 
@@ -51,9 +63,6 @@ class CityControllerTest {
     @MockBean
     private CityService cityService;
 
-    @MockBean
-    private DatabaseInitializerService databaseInitializer;
-
     private final static String CITY_BASE_PATH = "/city-list";
 
     private final int validPageNumber = 1;
@@ -70,6 +79,10 @@ class CityControllerTest {
             resourceAsStream
     );
 
+    private final String imageETag = "6d4c-186f2a3c5b8";
+    private final long imageLastModified = 1677317249000L;
+    private final CityImage cityImage = new CityImage(new ClassPathResource("Tallinn.jpg"), imageETag, imageLastModified);
+
     private final CityUpdateRequest cityUpdateRequest = new CityUpdateRequest(cityName);
     private final String requestPayload = objectMapper.writeValueAsString(cityUpdateRequest);
     private final MockMultipartFile cityProperties = new MockMultipartFile("cityProperties", "cityProperties", "application/json", requestPayload.getBytes());
@@ -168,16 +181,98 @@ class CityControllerTest {
     @Test
     void getImage_GivenValidCityId_ReturnsImage() throws Exception {
         // given
-        InputStream resourceAsStream = CityControllerTest.class.getClassLoader().getResourceAsStream("Tallinn.jpg");
-        when(cityService.getImageById(cityId)).thenReturn(resourceAsStream);
+        when(cityService.getImageById(cityId, null)).thenReturn(cityImage);
 
         // when
         var requestResult = mockMvc.perform(get(new URI(CITY_BASE_PATH + "/images/" + cityId)));
 
         // then
         var responseBody = requestResult.andExpect(status().isOk())
-                .andReturn().getResponse().getContentAsString();
-        assertThat(responseBody).isNotEmpty();
+                .andExpect(content().contentType(MediaType.IMAGE_JPEG))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + imageETag + "\""))
+                .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, imageLastModified))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=0, must-revalidate, public"))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(responseBody).hasSize((int) new ClassPathResource("Tallinn.jpg").contentLength());
+    }
+
+    @Test
+    void getImage_GivenImageStillImporting_ReturnsUncachedPlaceholder() throws Exception {
+        // given
+        var placeholder = new CityImage(new ClassPathResource("Tallinn.jpg"), null, 0, true);
+        when(cityService.getImageById(cityId, null)).thenReturn(placeholder);
+
+        // when
+        var requestResult = mockMvc.perform(get(new URI(CITY_BASE_PATH + "/images/" + cityId)));
+
+        // then
+        requestResult.andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_JPEG))
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"));
+    }
+
+    @Test
+    void getImage_GivenWidth_ReturnsImageOfThatWidth() throws Exception {
+        // given
+        when(cityService.getImageById(cityId, 160)).thenReturn(cityImage);
+
+        // when
+        var requestResult = mockMvc.perform(get(new URI(CITY_BASE_PATH + "/images/" + cityId)).param("w", "160"));
+
+        // then
+        requestResult.andExpect(status().isOk());
+        verify(cityService).getImageById(cityId, 160);
+    }
+
+    @Test
+    void getImage_GivenInvalidWidth_ReturnsErrorDto() throws Exception {
+        // given
+        var errorMessage = String.format(INVALID_IMAGE_WIDTH_EXCEPTION_MESSAGE, 0);
+        var expectedErrorResponse = ErrorResponse
+                .builder()
+                .type(HttpStatus.BAD_REQUEST.toString())
+                .errorMessages(List.of(errorMessage))
+                .build();
+        when(cityService.getImageById(cityId, 0)).thenThrow(new InvalidImageWidthException(0));
+
+        // when
+        var requestResult = mockMvc.perform(get(new URI(CITY_BASE_PATH + "/images/" + cityId)).param("w", "0"));
+
+        // then
+        requestResult.andExpect(status().isBadRequest());
+        assertBody(requestResult, expectedErrorResponse);
+    }
+
+    @Test
+    void getImage_GivenMatchingETag_ReturnsNotModified() throws Exception {
+        // given
+        when(cityService.getImageById(cityId, null)).thenReturn(cityImage);
+
+        // when
+        var requestResult = mockMvc.perform(get(new URI(CITY_BASE_PATH + "/images/" + cityId))
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + imageETag + "\""));
+
+        // then
+        var responseBody = requestResult.andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + imageETag + "\""))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(responseBody).isEmpty();
+    }
+
+    @Test
+    void getImage_GivenNotModifiedSince_ReturnsNotModified() throws Exception {
+        // given
+        when(cityService.getImageById(cityId, null)).thenReturn(cityImage);
+
+        // when
+        var requestResult = mockMvc.perform(get(new URI(CITY_BASE_PATH + "/images/" + cityId))
+                .header(HttpHeaders.IF_MODIFIED_SINCE, imageLastModified));
+
+        // then
+        var responseBody = requestResult.andExpect(status().isNotModified())
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(responseBody).isEmpty();
     }
 
     @Test
@@ -189,7 +284,7 @@ class CityControllerTest {
                 .type(HttpStatus.NOT_FOUND.toString())
                 .errorMessages(List.of(errorMessage))
                 .build();
-        when(cityService.getImageById(cityId)).thenThrow(new CityNotFoundException(cityId));
+        when(cityService.getImageById(cityId, null)).thenThrow(new CityNotFoundException(cityId));
 
         // when
         var requestResult = mockMvc.perform(get(new URI(CITY_BASE_PATH + "/images/" + cityId)));
@@ -208,7 +303,7 @@ class CityControllerTest {
                 .type(HttpStatus.NOT_FOUND.toString())
                 .errorMessages(List.of(errorMessage))
                 .build();
-        when(cityService.getImageById(cityId)).thenThrow(new ImageNotFoundException(imagePath, new IOException()));
+        when(cityService.getImageById(cityId, null)).thenThrow(new ImageNotFoundException(imagePath, new IOException()));
 
         // when
         var requestResult = mockMvc.perform(get(new URI(CITY_BASE_PATH + "/images/" + cityId)));
@@ -223,7 +318,6 @@ class CityControllerTest {
         // given
         var citiesResponse = List.of(new CityResponse(cityId, cityName, imagePath));
         var expectedCitiesPaginationResponse = new CitiesPaginationResponse(citiesResponse, validPageNumber, 5, 25);
-        doNothing().when(databaseInitializer).initializeDB();
         when(cityService.getCitiesByPage(validPageNumber)).thenReturn(expectedCitiesPaginationResponse);
 
         // when
@@ -233,7 +327,6 @@ class CityControllerTest {
         );
 
         // then
-        verify(databaseInitializer).initializeDB();
         requestResult.andExpect(status().isOk());
         assertBody(requestResult, expectedCitiesPaginationResponse);
     }
@@ -248,7 +341,6 @@ class CityControllerTest {
                 .type(HttpStatus.BAD_REQUEST.toString())
                 .errorMessages(List.of(errorMessage))
                 .build();
-        doNothing().when(databaseInitializer).initializeDB();
         when(cityService.getCitiesByPage(invalidPageNumber)).thenThrow(new InvalidPageNumberException(invalidPageNumber));
 
         // when
@@ -281,6 +373,26 @@ class CityControllerTest {
         assertBody(requestResult, expectedCitiesPaginationResponse);
     }
 
+    @Test
+    void getByPageAndName_GivenFuzzyMode_ReturnsSimilarNames() throws Exception {
+        // given
+        var citiesResponse = List.of(new CityResponse(cityId, cityName, imagePath));
+        var expectedCitiesPaginationResponse = new CitiesPaginationResponse(citiesResponse, validPageNumber, 1, 1);
+        when(cityService.getCitiesByPageAndSimilarName(validPageNumber, "Talin")).thenReturn(expectedCitiesPaginationResponse);
+
+        // when
+        var requestResult = mockMvc.perform(get(
+                new URI(CITY_BASE_PATH + "/search"))
+                .param("page", String.valueOf(validPageNumber))
+                .param("name", "Talin")
+                .param("fuzzy", "true")
+        );
+
+        // then
+        requestResult.andExpect(status().isOk());
+        assertBody(requestResult, expectedCitiesPaginationResponse);
+    }
+
     @Test
     void getByPageAndName_GivenInvalidPageNumber_ReturnsErrorDto() throws Exception {
         // given
@@ -304,6 +416,83 @@ class CityControllerTest {
         assertBody(requestResult, expectedErrorResponse);
     }
 
+    @Test
+    void getSliceByPageAndName_GivenValidNameAndPageNumber_ReturnsDataWithoutTotals() throws Exception {
+        // given
+        var expectedCitiesSliceResponse = new CitiesSliceResponse(
+                List.of(new CityResponse(cityId, cityName, imagePath)), validPageNumber, true);
+        when(cityService.getCitiesSliceByPageAndName(validPageNumber, cityName)).thenReturn(expectedCitiesSliceResponse);
+
+        // when
+        var requestResult = mockMvc.perform(get(
+                new URI(CITY_BASE_PATH + "/search/slice"))
+                .param("page", String.valueOf(validPageNumber))
+                .param("name", cityName)
+        );
+
+        // then
+        requestResult.andExpect(status().isOk());
+        assertBody(requestResult, expectedCitiesSliceResponse);
+    }
+
+    @Test
+    void suggest_GivenPrefix_ReturnsSuggestions() throws Exception {
+        // given
+        var expectedSuggestions = List.of(new CitySuggestion(cityId, cityName));
+        when(cityService.suggestCities("Tal")).thenReturn(expectedSuggestions);
+
+        // when
+        var requestResult = mockMvc.perform(get(
+                new URI(CITY_BASE_PATH + "/suggest"))
+                .param("prefix", "Tal")
+        );
+
+        // then
+        requestResult.andExpect(status().isOk());
+        requestResult.andExpect(content().json(objectMapper.writeValueAsString(expectedSuggestions)));
+    }
+
+    @Test
+    void getAfterCursor_GivenCursor_ReturnsDataWithNextCursor() throws Exception {
+        // given
+        var expectedCitiesCursorResponse = new CitiesCursorResponse(
+                List.of(new CityResponse(cityId, cityName, imagePath)), "MTIz");
+        when(cityService.getCitiesAfter("MTIy")).thenReturn(expectedCitiesCursorResponse);
+
+        // when
+        var requestResult = mockMvc.perform(get(
+                new URI(CITY_BASE_PATH + "/cities"))
+                .param("cursor", "MTIy")
+        );
+
+        // then
+        requestResult.andExpect(status().isOk());
+        assertBody(requestResult, expectedCitiesCursorResponse);
+    }
+
+    @Test
+    void getByNameAfterCursor_GivenInvalidCursor_ReturnsErrorDto() throws Exception {
+        // given
+        var cursor = "invalid";
+        var errorMessage = String.format(INVALID_CURSOR_EXCEPTION_MESSAGE, cursor);
+        var expectedErrorResponse = ErrorResponse
+                .builder()
+                .type(HttpStatus.BAD_REQUEST.toString())
+                .errorMessages(List.of(errorMessage))
+                .build();
+        when(cityService.getCitiesByNameAfter(cursor, cityName)).thenThrow(new InvalidCursorException(cursor));
+
+        // when
+        var requestResult = mockMvc.perform(get(
+                new URI(CITY_BASE_PATH + "/cities/search"))
+                .param("cursor", cursor)
+                .param("name", cityName)
+        );
+
+        // then
+        requestResult.andExpect(status().isBadRequest());
+        assertBody(requestResult, expectedErrorResponse);
+    }
 
     private <T> ObjectAssert<T> assertBody(ResultActions result, T expected) throws Exception {
         String body = result.andReturn().getResponse().getContentAsString();
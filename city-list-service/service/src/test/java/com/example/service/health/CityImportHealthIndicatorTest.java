@@ -0,0 +1,93 @@
+package com.example.service.health;
+
+import com.example.service.service.CityImageImporter;
+import com.example.service.service.DatabaseInitializerService;
+import com.example.service.service.ImportState;
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+class CityImportHealthIndicatorTest {
+
+    @Mock
+    private DatabaseInitializerService databaseInitializer;
+
+    @Mock
+    private CityImageImporter cityImageImporter;
+
+    @InjectMocks
+    private CityImportHealthIndicator healthIndicator;
+
+    @Test
+    void health_GivenImportRunning_ReturnsOutOfServiceWithProgress() {
+        // given
+        when(databaseInitializer.getState()).thenReturn(ImportState.RUNNING);
+        when(databaseInitializer.getTotalCities()).thenReturn(1000);
+        when(databaseInitializer.getImportedCities()).thenReturn(250);
+        when(databaseInitializer.getSkippedCities()).thenReturn(100);
+
+        // when
+        var health = healthIndicator.health();
+
+        // then
+        assertThat(health.getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+        assertThat(health.getDetails())
+                .containsEntry("state", ImportState.RUNNING)
+                .containsEntry("totalCities", 1000)
+                .containsEntry("importedCities", 250)
+                .containsEntry("skippedCities", 100);
+    }
+
+    @Test
+    void health_GivenImportNotStarted_ReturnsOutOfService() {
+        // given
+        when(databaseInitializer.getState()).thenReturn(ImportState.PENDING);
+
+        // when
+        var health = healthIndicator.health();
+
+        // then
+        assertThat(health.getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+    }
+
+    @Test
+    void health_GivenCitiesImportedAndImagesInProgress_ReturnsUpWithImageProgress() {
+        // given
+        when(databaseInitializer.getState()).thenReturn(ImportState.COMPLETED);
+        when(cityImageImporter.getImportedImages()).thenReturn(400);
+        when(cityImageImporter.getFailedImages()).thenReturn(3);
+
+        // when
+        var health = healthIndicator.health();
+
+        // then
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails())
+                .containsEntry("importedImages", 400)
+                .containsEntry("failedImages", 3);
+    }
+
+    @Test
+    void health_GivenImportFailed_ReturnsDownWithCause() {
+        // given
+        when(databaseInitializer.getState()).thenReturn(ImportState.FAILED);
+        when(databaseInitializer.getFailure()).thenReturn(new IOException("cities.csv not found"));
+
+        // when
+        var health = healthIndicator.health();
+
+        // then
+        assertThat(health.getStatus()).isEqualTo(Status.DOWN);
+        assertThat(health.getDetails())
+                .containsEntry("state", ImportState.FAILED)
+                .containsEntry("error", "java.io.IOException: cities.csv not found");
+    }
+}
@@ -1,67 +1,44 @@
 package com.example.service.interceptor;
 
-import java.io.IOException;
-import java.lang.reflect.Field;
-import org.junit.jupiter.api.BeforeEach;
+import java.net.URI;
+import java.net.http.HttpRequest;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.springframework.data.util.ReflectionUtils;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpRequest;
-import org.springframework.http.client.ClientHttpRequestExecution;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
-import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
-import static org.mockito.BDDMockito.given;
+import static org.assertj.core.api.Assertions.assertThat;
 
 @ExtendWith(SpringExtension.class)
 class BearerTokenAuthInterceptorTest {
 
     private static final String BEARER_TOKEN_VALUE = "authToken";
+    private static final URI IMAGE_URI = URI.create("https://upload.wikimedia.org/image.jpg");
 
-    private HttpHeaders httpHeaders = new HttpHeaders();
-
-    @InjectMocks
-    private BearerTokenAuthInterceptor authInterceptor;
-
-    @Mock
-    private HttpRequest httpRequest;
-
-    @Mock
-    private ClientHttpRequestExecution clientHttpRequestExecution;
-
-    @BeforeEach
-    void setUp() {
-        Field bearerTokenField = ReflectionUtils.findRequiredField(BearerTokenAuthInterceptor.class, "bearerTokenValue");
-        ReflectionUtils.setField(bearerTokenField, authInterceptor, BEARER_TOKEN_VALUE);
-    }
+    private final BearerTokenAuthInterceptor authInterceptor = new BearerTokenAuthInterceptor(BEARER_TOKEN_VALUE);
 
     @Test
-    void intercept_calledWithoutAuthHeader_addsAuthHeader() throws IOException {
+    void intercept_calledWithoutAuthHeader_addsAuthHeader() {
         // given
-        given(httpRequest.getHeaders()).willReturn(httpHeaders);
+        var httpRequest = HttpRequest.newBuilder(IMAGE_URI).build();
 
         // when
-        authInterceptor.intercept(httpRequest, null, clientHttpRequestExecution);
+        var interceptedRequest = authInterceptor.intercept(httpRequest);
 
         // then
-        assertThat(httpHeaders.get("Authorization").get(0)).isEqualTo("Bearer " + BEARER_TOKEN_VALUE);
+        assertThat(interceptedRequest.headers().allValues("Authorization")).containsExactly("Bearer " + BEARER_TOKEN_VALUE);
+        assertThat(interceptedRequest.uri()).isEqualTo(IMAGE_URI);
     }
 
     @Test
-    void intercept_calledWithAuthHeader_doesNotAddAuthHeader() throws IOException {
-        httpHeaders.setBearerAuth("authValue");
-
+    void intercept_calledWithAuthHeader_doesNotAddAuthHeader() {
         // given
-        given(httpRequest.getHeaders()).willReturn(httpHeaders);
+        var httpRequest = HttpRequest.newBuilder(IMAGE_URI).header("Authorization", "Bearer authValue").build();
 
         // when
-        authInterceptor.intercept(httpRequest, null, clientHttpRequestExecution);
+        var interceptedRequest = authInterceptor.intercept(httpRequest);
 
         // then
-        assertThat(httpHeaders.get("Authorization").get(0)).isEqualTo("Bearer authValue");
+        assertThat(interceptedRequest.headers().allValues("Authorization")).containsExactly("Bearer authValue");
     }
 
 }
@@ -1,20 +1,12 @@
 package com.example.service.interceptor;
 
-import java.io.IOException;
-import java.lang.reflect.Field;
-import org.junit.jupiter.api.BeforeEach;
+import java.net.URI;
+import java.net.http.HttpRequest;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.springframework.data.util.ReflectionUtils;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpRequest;
-import org.springframework.http.client.ClientHttpRequestExecution;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
-import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
-import static org.mockito.BDDMockito.given;
+import static org.assertj.core.api.Assertions.assertThat;
 
 @ExtendWith(SpringExtension.class)
 class UserAgentHttpHeaderInterceptorTest {
@@ -22,33 +14,20 @@ class UserAgentHttpHeaderInterceptorTest {
     private static final String USER_AGENT_HEADER_KEY = "User-Agent";
     private static final String USER_AGENT_HEADER_VALUE = "APPLICATION_NAME";
 
-    @Mock
-    private HttpRequest httpRequest;
-
-    @Mock
-    private ClientHttpRequestExecution clientHttpRequestExecution;
-
-    @InjectMocks
-    private UserAgentHttpHeaderInterceptor testObj;
-
-    private final HttpHeaders httpHeaders = new HttpHeaders();
-
-    @BeforeEach
-    void setUp() {
-        Field applicationNameField = ReflectionUtils.findRequiredField(UserAgentHttpHeaderInterceptor.class, "userAgentHeaderValue");
-        ReflectionUtils.setField(applicationNameField, testObj, USER_AGENT_HEADER_VALUE);
-    }
+    private final UserAgentHttpHeaderInterceptor testObj = new UserAgentHttpHeaderInterceptor(USER_AGENT_HEADER_VALUE);
 
     @Test
-    void interceptor_calledWidthX_addsCorrectAcceptHeader() throws IOException {
+    void interceptor_calledWidthX_addsCorrectAcceptHeader() {
         // given
-        given(httpRequest.getHeaders()).willReturn(httpHeaders);
+        var httpRequest = HttpRequest.newBuilder(URI.create("https://upload.wikimedia.org/image.jpg"))
+                .header(USER_AGENT_HEADER_KEY, "other")
+                .build();
 
         // when
-        testObj.intercept(httpRequest, null, clientHttpRequestExecution);
+        var interceptedRequest = testObj.intercept(httpRequest);
 
         // then
-        assertThat(httpHeaders.get(USER_AGENT_HEADER_KEY).get(0)).isEqualTo(USER_AGENT_HEADER_VALUE);
+        assertThat(interceptedRequest.headers().allValues(USER_AGENT_HEADER_KEY)).containsExactly(USER_AGENT_HEADER_VALUE);
     }
 
 }
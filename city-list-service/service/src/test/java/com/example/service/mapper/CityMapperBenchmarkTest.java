@@ -0,0 +1,104 @@
+package com.example.service.mapper;
+
+import com.example.service.dto.CityResponse;
+import com.example.service.entity.CityEntity;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import static com.example.service.service.CityServiceImpl.PAGE_SIZE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the hand-written city mapping with ModelMapper in mapped cities per second and bytes allocated per
+ * mapped city, one listing page per invocation. Run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CityMapperBenchmarkTest {
+
+    private static final String ALLOCATION_PER_OPERATION = "gc.alloc.rate.norm";
+
+    private final ModelMapper modelMapper = new ModelMapper();
+    private List<CityEntity> cities;
+
+    @Setup
+    public void setup() {
+        cities = LongStream.rangeClosed(1, PAGE_SIZE)
+                .mapToObj(id -> new CityEntity(id, "City " + id, "images/cities/" + id + ".jpg"))
+                .toList();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGE_SIZE)
+    public List<CityResponse> handWritten() {
+        return CityMapper.entityListToResponseList(cities);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGE_SIZE)
+    public List<CityResponse> modelMapper() {
+        return cities.stream().map(city -> modelMapper.map(city, CityResponse.class)).toList();
+    }
+
+    @Test
+    void mapCities_ComparesHandWrittenMapperWithModelMapper() throws RunnerException {
+        var options = new OptionsBuilder()
+                .include(CityMapperBenchmarkTest.class.getName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        var results = new Runner(options).run();
+
+        var handWritten = findResult(results, "handWritten");
+        var modelMapper = findResult(results, "modelMapper");
+        log.info("hand-written: {} cities/s, {} B/city; ModelMapper: {} cities/s, {} B/city; speed-up: {}x",
+                Math.round(handWritten.getPrimaryResult().getScore()), Math.round(allocationPerCity(handWritten)),
+                Math.round(modelMapper.getPrimaryResult().getScore()), Math.round(allocationPerCity(modelMapper)),
+                String.format("%.1f", handWritten.getPrimaryResult().getScore() /
+                        modelMapper.getPrimaryResult().getScore()));
+        assertThat(handWritten.getPrimaryResult().getScore()).isGreaterThan(modelMapper.getPrimaryResult().getScore());
+    }
+
+    private static RunResult findResult(Collection<RunResult> results, String benchmark) {
+        return results.stream()
+                .filter(result -> result.getParams().getBenchmark().endsWith("." + benchmark))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static double allocationPerCity(RunResult result) {
+        // older JMH versions prefix the secondary result labels with a dot
+        return result.getSecondaryResults().entrySet().stream()
+                .filter(entry -> entry.getKey().endsWith(ALLOCATION_PER_OPERATION))
+                .findFirst()
+                .map(entry -> entry.getValue().getScore())
+                .orElse(Double.NaN);
+    }
+}
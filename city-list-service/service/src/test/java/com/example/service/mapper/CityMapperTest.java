@@ -4,6 +4,7 @@ import com.example.service.dto.CitiesPaginationResponse;
 import com.example.service.dto.CityResponse;
 import com.example.service.dto.CityUpdateRequest;
 import com.example.service.entity.CityEntity;
+import com.example.service.entity.ImageStatus;
 import java.util.Collections;
 import java.util.List;
 import org.junit.jupiter.api.Test;
@@ -25,10 +26,41 @@ class CityMapperTest {
     void requestToEntity_GivenUpdateRequest_ReturnsEntity() {
         // given
         var request = new CityUpdateRequest(cityName);
+        var currentEntity = new CityEntity(cityId, "old city name", picturePath);
         var expectedEntity = new CityEntity(cityId, cityName, picturePath);
 
         // when
-        var actualEntity = CityMapper.updateRequestToEntity(cityId, picturePath, request);
+        var actualEntity = CityMapper.updateRequestToEntity(currentEntity, picturePath, request);
+
+        // then
+        assertEquals(expectedEntity, actualEntity);
+    }
+
+    @Test
+    void requestToEntity_GivenImageOfPendingImport_KeepsSourceAndMarksImageReady() {
+        // given
+        var request = new CityUpdateRequest(cityName);
+        var currentEntity = new CityEntity(cityId, cityName, null, "7", ImageStatus.PENDING, "https://example.org/tallinn.jpg", null, null, "tallinn");
+        var expectedEntity = new CityEntity(cityId, cityName, picturePath, "7", ImageStatus.READY, "https://example.org/tallinn.jpg", null, null, "tallinn");
+
+        // when
+        var actualEntity = CityMapper.updateRequestToEntity(currentEntity, picturePath, request);
+
+        // then
+        assertEquals(expectedEntity, actualEntity);
+    }
+
+    @Test
+    void requestToEntity_GivenImageReplacingImportedImage_DropsSourceValidators() {
+        // given
+        var request = new CityUpdateRequest(cityName);
+        var currentEntity = new CityEntity(cityId, cityName, "images/cities/imported.jpg", "7", ImageStatus.READY,
+                "https://example.org/tallinn.jpg", "\"v1\"", "Wed, 21 Oct 2015 07:28:00 GMT", "tallinn");
+        var expectedEntity = new CityEntity(cityId, cityName, picturePath, "7", ImageStatus.READY,
+                "https://example.org/tallinn.jpg", null, null, "tallinn");
+
+        // when
+        var actualEntity = CityMapper.updateRequestToEntity(currentEntity, picturePath, request);
 
         // then
         assertEquals(expectedEntity, actualEntity);
@@ -61,49 +93,47 @@ class CityMapperTest {
     }
 
     @Test
-    void pageEntityToPageResponse_GivenPageEntity_ReturnsResponse() {
+    void pageToPageResponse_GivenPage_ReturnsResponse() {
         // given
         var page = 1;
         var pageSize = 5;
         var totalElements = 2;
-        var cityEntity = new CityEntity(cityId, cityName, picturePath);
-        var content = List.of(cityEntity, cityEntity);
+        var response = new CityResponse(cityId, cityName, picturePath);
+        var content = List.of(response, response);
         var pageRequest = PageRequest.of(page, pageSize);
-        var pageEntity = new PageImpl<>(content, pageRequest, totalElements);
+        var cityPage = new PageImpl<>(content, pageRequest, totalElements);
 
-        var response = new CityResponse(cityId, cityName, picturePath);
-        var expectedPageResponse = new CitiesPaginationResponse(List.of(response, response),
+        var expectedPageResponse = new CitiesPaginationResponse(content,
                 ++page,
-                pageEntity.getTotalPages(),
-                pageEntity.getTotalElements()
+                cityPage.getTotalPages(),
+                cityPage.getTotalElements()
         );
 
         // when
-        var actualPageResponse = CityMapper.pageEntityToPageResponse(pageEntity);
+        var actualPageResponse = CityMapper.pageToPageResponse(cityPage);
 
         // then
         assertEquals(expectedPageResponse, actualPageResponse);
     }
 
     @Test
-    void pageEntityToPageResponse_GivenPageEntityWithEmptyContent_ReturnsResponseWithPageZero() {
+    void pageToPageResponse_GivenPageWithEmptyContent_ReturnsResponseWithPageZero() {
         // given
         var page = 1;
         var pageSize = 5;
         var totalElements = 0;
         var pageRequest = PageRequest.of(page, pageSize);
-        List<CityEntity> content = Collections.emptyList();
-        var pageEntity = new PageImpl<>(content, pageRequest, totalElements);
+        List<CityResponse> content = Collections.emptyList();
+        var cityPage = new PageImpl<>(content, pageRequest, totalElements);
 
-        List<CityResponse> response = Collections.emptyList();
-        var expectedPageResponse = new CitiesPaginationResponse(response,
+        var expectedPageResponse = new CitiesPaginationResponse(content,
                 0,
-                pageEntity.getTotalPages(),
-                pageEntity.getTotalElements()
+                cityPage.getTotalPages(),
+                cityPage.getTotalElements()
         );
 
         // when
-        var actualPageResponse = CityMapper.pageEntityToPageResponse(pageEntity);
+        var actualPageResponse = CityMapper.pageToPageResponse(cityPage);
 
         // then
         assertEquals(expectedPageResponse, actualPageResponse);
@@ -0,0 +1,78 @@
+package com.example.service.repository;
+
+import com.example.service.config.EntityCacheConfig;
+import com.example.service.config.EntityCacheProperties;
+import com.example.service.entity.CityEntity;
+import com.example.service.entity.ImageStatus;
+import com.google.common.collect.Lists;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the import write paths in rows per second. Run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@DataJpaTest
+@Import({CityBulkLoader.class, EntityCacheConfig.class})
+@EnableConfigurationProperties(EntityCacheProperties.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CityBulkLoaderBenchmarkIntegrationTest {
+
+    private static final int ROWS = 20_000;
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired
+    private CityBulkLoader cityBulkLoader;
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @BeforeEach
+    void setup() {
+        cityRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void insertRows_ComparesSaveAllWithBulkLoader() {
+        // warm up both paths
+        measure("warm-up saveAll", 1_000, cityRepository::saveAll);
+        measure("warm-up bulk loader", 1_000, cityBulkLoader::insertAll);
+        cityRepository.deleteAllInBatch();
+
+        var saveAllRowsPerSecond = measure("saveAll", ROWS, cityRepository::saveAll);
+        cityRepository.deleteAllInBatch();
+        var bulkLoaderRowsPerSecond = measure("bulk loader", ROWS, cityBulkLoader::insertAll);
+
+        log.info("saveAll: {} rows/s, bulk loader: {} rows/s, speed-up: {}x", saveAllRowsPerSecond,
+                bulkLoaderRowsPerSecond, String.format("%.1f", bulkLoaderRowsPerSecond / saveAllRowsPerSecond));
+        assertThat(cityRepository.count()).isEqualTo(ROWS);
+    }
+
+    private double measure(String name, int rows, Consumer<List<CityEntity>> batchWriter) {
+        List<CityEntity> cities = IntStream.range(0, rows)
+                .mapToObj(i -> new CityEntity(null, "City " + i, null, name + i, ImageStatus.PENDING, "city_image.jpg", null, null, null))
+                .collect(Collectors.toList());
+        var start = System.nanoTime();
+        Lists.partition(cities, BATCH_SIZE).forEach(batchWriter);
+        var rowsPerSecond = rows / ((System.nanoTime() - start) / 1e9);
+        log.info("{}: {} rows in {} rows/s", name, rows, Math.round(rowsPerSecond));
+        return rowsPerSecond;
+    }
+}
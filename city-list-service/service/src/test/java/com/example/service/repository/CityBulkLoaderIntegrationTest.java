@@ -0,0 +1,88 @@
+package com.example.service.repository;
+
+import com.example.service.config.EntityCacheConfig;
+import com.example.service.config.EntityCacheProperties;
+import com.example.service.dto.CityResponse;
+import com.example.service.entity.CityEntity;
+import com.example.service.entity.ImageStatus;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+@DataJpaTest
+@Import({CityBulkLoader.class, EntityCacheConfig.class})
+@EnableConfigurationProperties(EntityCacheProperties.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CityBulkLoaderIntegrationTest {
+
+    @Autowired
+    private CityBulkLoader cityBulkLoader;
+
+    @Autowired
+    private CityRepository cityRepository;
+
+    @BeforeEach
+    void setup() {
+        cityRepository.deleteAll();
+    }
+
+    @Test
+    void insertAll_GivenNewCities_InsertsThemWithIds() {
+        // given
+        var cities = new ArrayList<>(List.of(
+                new CityEntity(null, "Tokyo", null, "1", ImageStatus.PENDING, "tokyo.jpg", null, null, null),
+                new CityEntity(null, "Jakarta", null, "2", ImageStatus.PENDING, "jakarta.jpg", null, null, null)));
+
+        // when
+        var insertedCities = cityBulkLoader.insertAll(cities);
+
+        // then
+        assertThat(insertedCities).isEqualTo(2);
+        assertThat(cities).allMatch(city -> city.getId() != null);
+        assertThat(cityRepository.findById(cities.get(1).getId())).contains(cities.get(1));
+    }
+
+    @Test
+    void insertAll_GivenCitiesSavedThroughJpa_AllocatesDistinctIds() {
+        // given
+        var savedCity = cityRepository.saveAndFlush(new CityEntity(null, "Tallinn", "path/to/tallinn"));
+        var cities = new ArrayList<>(List.of(new CityEntity(null, "Delhi", null, "3", ImageStatus.PENDING, "delhi.jpg", null, null, null)));
+
+        // when
+        cityBulkLoader.insertAll(cities);
+        var laterSavedCity = cityRepository.saveAndFlush(new CityEntity(null, "Tartu", "path/to/tartu"));
+
+        // then
+        assertThat(cityRepository.count()).isEqualTo(3);
+        assertThat(List.of(savedCity.getId(), cities.get(0).getId(), laterSavedCity.getId())).doesNotHaveDuplicates();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void insertAll_GivenCachedListing_EvictsCachedQueryResults() {
+        // given
+        cityRepository.save(new CityEntity(null, "Tallinn", "path/to/tallinn"));
+        var pageRequest = PageRequest.of(0, 10);
+        cityRepository.findResponseSliceBy(pageRequest);
+        var cities = new ArrayList<>(List.of(new CityEntity(null, "Delhi", null, "3", ImageStatus.PENDING, "delhi.jpg", null, null, "delhi")));
+
+        // when
+        cityBulkLoader.insertAll(cities);
+        var citySlice = cityRepository.findResponseSliceBy(pageRequest);
+
+        // then
+        assertThat(citySlice.getContent()).extracting(CityResponse::getName).containsExactlyInAnyOrder("Tallinn", "Delhi");
+    }
+}
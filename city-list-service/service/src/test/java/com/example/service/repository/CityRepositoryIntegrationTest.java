@@ -1,13 +1,19 @@
 package com.example.service.repository;
 
+import com.example.service.config.EntityCacheConfig;
+import com.example.service.config.EntityCacheProperties;
+import com.example.service.dto.CityResponse;
 import com.example.service.entity.CityEntity;
+import com.example.service.entity.ImageStatus;
 import java.util.Collections;
 import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 
@@ -16,6 +22,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 
 @DataJpaTest
+@Import(EntityCacheConfig.class)
+@EnableConfigurationProperties(EntityCacheProperties.class)
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 class CityRepositoryIntegrationTest {
 
@@ -110,44 +118,110 @@ class CityRepositoryIntegrationTest {
     }
 
     @Test
-    void findAllByName_GivenSomeMatchingDataInDB_ReturnsEntityPageWithData() {
+    void findByNameContainingAfter_GivenPosition_ReturnsFollowingMatchesOrderedByNameAndId() {
         // given
-        var searchKey = "tallinn";
-        var pageRequest = PageRequest.of(0, 12);
-        var cityEntity1 = new CityEntity(null, "Tallinn", picturePath);
-        var cityEntity2 = new CityEntity(null, "ttallinNn", picturePath);
-        var cityEntity3 = new CityEntity(null, "city with different name", picturePath);
-        var cityEntityList = List.of(cityEntity1, cityEntity2, cityEntity3);
-        cityRepository.saveAll(cityEntityList);
+        var tartu = cityRepository.save(new CityEntity(null, "Tartu", picturePath));
+        var firstTallinn = cityRepository.save(new CityEntity(null, "Tallinn", picturePath));
+        var secondTallinn = cityRepository.save(new CityEntity(null, "Tallinn", picturePath));
+        cityRepository.save(new CityEntity(null, "Narva", picturePath));
+
+        // when
+        var cities = cityRepository.findByNameContainingAfter("t", firstTallinn.getName(), firstTallinn.getId(),
+                PageRequest.ofSize(PAGE_SIZE));
 
-        var expectedCityEntityPage = new PageImpl<>(
-                List.of(cityEntity1, cityEntity2), pageRequest, 2);
+        // then
+        assertThat(cities).containsExactly(secondTallinn, tartu);
+    }
+
+    @Test
+    void findByNameContainingAfter_GivenUnderscore_MatchesItLiterally() {
+        // given
+        cityRepository.save(new CityEntity(null, "Tartu", picturePath));
+        var underscored = cityRepository.save(new CityEntity(null, "T_rtu", picturePath));
 
         // when
-        var actualCityEntityPage = cityRepository.
-                findAllByNameIsContainingIgnoreCase(searchKey, pageRequest);
+        var cities = cityRepository.findByNameContainingAfter("t_r", "", 0L, PageRequest.ofSize(PAGE_SIZE));
 
         // then
-        assertThat(actualCityEntityPage).isEqualTo(expectedCityEntityPage);
+        assertThat(cities).containsExactly(underscored);
     }
 
     @Test
-    void findAllByName_GivenNoMatchingDataInDB_ReturnsEntityPageWithNoData() {
+    void findResponseSliceBySearchNameContaining_GivenMatchingCities_ReturnsResponses() {
         // given
-        var searchKey = "tallinn";
-        var pageRequest = PageRequest.of(0, 12);
-        var cityEntityList = List.of(new CityEntity(null, "city with different name", picturePath));
-        cityRepository.saveAll(cityEntityList);
+        var tallinn = cityRepository.save(new CityEntity(null, "Tallinn", picturePath));
+        cityRepository.save(new CityEntity(null, "Tartu", picturePath));
 
-        var expectedCityEntityPage = new PageImpl<>(Collections.emptyList(), pageRequest, 0);
+        // when
+        var citySlice = cityRepository.findResponseSliceBySearchNameContaining("allin", PageRequest.of(0, PAGE_SIZE));
+
+        // then
+        assertThat(citySlice.getContent()).containsExactly(new CityResponse(tallinn.getId(), "Tallinn", picturePath));
+        assertThat(citySlice.hasNext()).isFalse();
+    }
+
+    @Test
+    void findResponseSliceBySearchNameContaining_GivenWildcard_MatchesItLiterally() {
+        // given
+        cityRepository.save(new CityEntity(null, "Tallinn", picturePath));
 
         // when
-        var actualCityEntityPage = cityRepository.
-                findAllByNameIsContainingIgnoreCase(searchKey, pageRequest);
+        var citySlice = cityRepository.findResponseSliceBySearchNameContaining("%", PageRequest.of(0, PAGE_SIZE));
 
         // then
-        assertThat(actualCityEntityPage).isEqualTo(expectedCityEntityPage);
+        assertThat(citySlice.getContent()).isEmpty();
     }
 
+    @Test
+    void findResponsesByIdIn_GivenIds_ReturnsResponsesOfThoseCities() {
+        // given
+        var tallinn = cityRepository.save(new CityEntity(null, "Tallinn", picturePath));
+        var tartu = cityRepository.save(new CityEntity(null, "Tartu", picturePath));
+        cityRepository.save(new CityEntity(null, "Narva", picturePath));
 
+        // when
+        var cities = cityRepository.findResponsesByIdIn(List.of(tallinn.getId(), tartu.getId()));
+
+        // then
+        assertThat(cities).containsExactlyInAnyOrder(new CityResponse(tallinn.getId(), "Tallinn", picturePath),
+                new CityResponse(tartu.getId(), "Tartu", picturePath));
+    }
+
+    @Test
+    void findByIdGreaterThan_GivenPosition_ReturnsFollowingCities() {
+        // given
+        var firstCity = cityRepository.save(new CityEntity(null, cityName, picturePath));
+        var secondCity = cityRepository.save(new CityEntity(null, cityName, picturePath));
+
+        // when
+        var cities = cityRepository.findByIdGreaterThanOrderById(firstCity.getId(), PageRequest.ofSize(PAGE_SIZE));
+
+        // then
+        assertThat(cities).containsExactly(secondCity);
+    }
+
+    @Test
+    void updateImportedImage_GivenPendingAndReadyCities_SetsImageOnlyOfPendingCity() {
+        // given
+        var pendingCity = new CityEntity(null, "Tallinn", null);
+        pendingCity.setImageStatus(ImageStatus.PENDING);
+        pendingCity = cityRepository.save(pendingCity);
+        var readyCity = cityRepository.save(new CityEntity(null, "Tartu", picturePath));
+
+        // when
+        var pendingUpdated = cityRepository.updateImportedImage(pendingCity.getId(), "images/imported.jpg",
+                ImageStatus.READY, "\"v1\"", null);
+        var readyUpdated = cityRepository.updateImportedImage(readyCity.getId(), "images/imported.jpg",
+                ImageStatus.READY, "\"v1\"", null);
+
+        // then
+        assertThat(pendingUpdated).isOne();
+        assertThat(readyUpdated).isZero();
+        assertThat(cityRepository.findById(pendingCity.getId())).get()
+                .extracting(CityEntity::getImagePath, CityEntity::getImageStatus)
+                .containsExactly("images/imported.jpg", ImageStatus.READY);
+        assertThat(cityRepository.findById(readyCity.getId())).get()
+                .extracting(CityEntity::getImagePath)
+                .isEqualTo(picturePath);
+    }
 }
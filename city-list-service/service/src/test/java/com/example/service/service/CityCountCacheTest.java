@@ -0,0 +1,52 @@
+package com.example.service.service;
+
+import com.example.service.config.ListingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(SpringExtension.class)
+class CityCountCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CityCountCache countCache = new CityCountCache(
+            new ListingProperties(Duration.ofMinutes(1), 10, 2, Duration.ofMinutes(1), 10),
+            meterRegistry
+    );
+    private final AtomicInteger counts = new AtomicInteger();
+
+    @Test
+    void get_GivenSameTermInOtherCase_CountsOnce() {
+        // when
+        var firstCount = countCache.get("Tallinn", this::count);
+        var secondCount = countCache.get("tallinn", this::count);
+
+        // then
+        assertEquals(42, firstCount);
+        assertEquals(42, secondCount);
+        assertEquals(1, counts.get());
+    }
+
+    @Test
+    void invalidateAll_CountsAgain() {
+        // given
+        countCache.get("Tallinn", this::count);
+
+        // when
+        countCache.invalidateAll();
+        countCache.get("Tallinn", this::count);
+
+        // then
+        assertEquals(2, counts.get());
+    }
+
+    private long count() {
+        counts.incrementAndGet();
+        return 42;
+    }
+}
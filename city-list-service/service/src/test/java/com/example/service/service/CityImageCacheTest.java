@@ -0,0 +1,145 @@
+package com.example.service.service;
+
+import com.example.service.config.ImageProperties;
+import com.example.service.dto.CityImage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.util.unit.DataSize;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+class CityImageCacheTest {
+
+    private final Long cityId = 123L;
+    private final String eTag = "4-1";
+    private final long lastModified = 1677317249000L;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CityImageCache imageCache = new CityImageCache(
+            new ImageProperties(Duration.ZERO, true, DataSize.ofBytes(8), DataSize.ofBytes(4), List.of(160)),
+            meterRegistry
+    );
+
+    @Test
+    void get_GivenCachedImage_ReturnsImageWithValidators() throws IOException {
+        // given
+        put(cityId, 0, image(new byte[]{1, 2, 3, 4}));
+
+        // when
+        var actualImage = imageCache.get(cityId, 0, this::failToLoad);
+
+        // then
+        assertThat(actualImage.getImage().getInputStream().readAllBytes()).containsExactly(1, 2, 3, 4);
+        assertThat(actualImage.getETag()).isEqualTo(eTag);
+        assertThat(actualImage.getLastModified()).isEqualTo(lastModified);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void put_GivenImageLargerThanEntryLimit_DoesNotCache() {
+        // when
+        put(cityId, 0, image(new byte[]{1, 2, 3, 4, 5}));
+
+        // then
+        assertThat(isCached(cityId, 0)).isFalse();
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void put_GivenSizeBudgetExceeded_EvictsLeastRecentlyUsedImage() {
+        // given
+        put(1L, 0, image(new byte[]{1, 2, 3, 4}));
+        put(2L, 0, image(new byte[]{1, 2, 3, 4}));
+        isCached(1L, 0);
+
+        // when
+        put(3L, 0, image(new byte[]{1, 2, 3, 4}));
+
+        // then
+        assertThat(isCached(1L, 0)).isTrue();
+        assertThat(isCached(2L, 0)).isFalse();
+        assertThat(meterRegistry.get("cache.evictions").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void get_GivenOtherWidthCached_ReturnsEmpty() {
+        // given
+        put(cityId, 160, image(new byte[]{1, 2}));
+
+        // when
+        var cached = isCached(cityId, 0);
+
+        // then
+        assertThat(cached).isFalse();
+    }
+
+    @Test
+    void invalidate_GivenCachedImages_RemovesAllWidths() {
+        // given
+        put(cityId, 0, image(new byte[]{1, 2, 3, 4}));
+        put(cityId, 160, image(new byte[]{1, 2}));
+
+        // when
+        imageCache.invalidate(cityId);
+
+        // then
+        assertThat(isCached(cityId, 0)).isFalse();
+        assertThat(isCached(cityId, 160)).isFalse();
+    }
+
+    @Test
+    void get_GivenCityInvalidatedWhileLoading_ServesImageWithoutKeepingIt() {
+        // when
+        var actualImage = imageCache.get(cityId, 0, () -> {
+            imageCache.invalidate(cityId);
+            return image(new byte[]{1, 2, 3, 4});
+        });
+
+        // then
+        assertThat(actualImage.getETag()).isEqualTo(eTag);
+        assertThat(isCached(cityId, 0)).isFalse();
+    }
+
+    @Test
+    void get_GivenPlaceholder_DoesNotCache() {
+        // when
+        put(cityId, 0, placeholder());
+
+        // then
+        assertThat(isCached(cityId, 0)).isFalse();
+    }
+
+    private void put(Long id, int width, CityImage cityImage) {
+        imageCache.get(id, width, () -> cityImage);
+    }
+
+    private boolean isCached(Long id, int width) {
+        var cached = new AtomicBoolean(true);
+        imageCache.get(id, width, () -> {
+            cached.set(false);
+            return placeholder();
+        });
+        return cached.get();
+    }
+
+    // placeholders are never cached, so probing with one leaves the cache as it is
+    private CityImage placeholder() {
+        return new CityImage(new ByteArrayResource(new byte[]{1, 2}), null, 0, true);
+    }
+
+    private CityImage failToLoad() {
+        throw new AssertionError("The image should have been cached");
+    }
+
+    private CityImage image(byte[] data) {
+        return new CityImage(new ByteArrayResource(data), eTag, lastModified);
+    }
+}
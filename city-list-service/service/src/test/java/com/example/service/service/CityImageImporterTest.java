@@ -0,0 +1,148 @@
+package com.example.service.service;
+
+import com.example.service.config.WikimediaApiProperties;
+import com.example.service.dto.DownloadedImage;
+import com.example.service.entity.CityEntity;
+import com.example.service.entity.ImageStatus;
+import com.example.service.exception.ImageNotFoundException;
+import com.example.service.exception.WikimediaUnavailableException;
+import com.example.service.repository.CityRepository;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+class CityImageImporterTest {
+
+    private final Long cityId = 7L;
+    private final String imageUrl = "city_image.jpg";
+    private final String imagePath = "images/cities/city.jpg";
+
+    @Mock
+    private CityRepository cityRepository;
+
+    @Mock
+    private CityPageCache pageCache;
+
+    @Mock
+    private WikimediaRestClientService restClient;
+
+    @Mock
+    private CityImageStore imageStore;
+
+    @Mock
+    private ThreadPoolTaskExecutor cityImportExecutor;
+
+    @Spy
+    private Semaphore cityImportPermits = new Semaphore(1);
+
+    @Mock
+    private WikimediaApiProperties wikimediaApiProperties;
+
+    @InjectMocks
+    private CityImageImporter cityImageImporter;
+
+    @BeforeEach
+    void setup() {
+        // run the downloads on the test thread
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(cityImportExecutor).execute(any(Runnable.class));
+        when(wikimediaApiProperties.getCircuitBreakerOpenDuration()).thenReturn(Duration.ZERO);
+        var pendingCity = new CityEntity(cityId, "Tallinn", null, "1", ImageStatus.PENDING, imageUrl, null, null, null);
+        when(cityRepository.findByImageStatusInAndIdGreaterThanOrderById(any(), anyLong(), any()))
+                .thenReturn(List.of(pendingCity));
+    }
+
+    @Test
+    void importPendingImages_GivenPendingCity_StoresImageAndMarksItReady() {
+        // given
+        var image = new DownloadedImage(Path.of("download.tmp"), "hash", 3);
+        when(restClient.fetchImage(imageUrl)).thenReturn(CompletableFuture.completedFuture(image));
+        when(imageStore.store(eq(image), any()))
+                .thenAnswer(invocation -> invocation.<Function<String, ?>>getArgument(1).apply(imagePath));
+        when(cityRepository.updateImportedImage(cityId, imagePath, ImageStatus.READY, null, null)).thenReturn(1);
+
+        // when
+        cityImageImporter.importPendingImages();
+
+        // then
+        verify(cityRepository).updateImportedImage(cityId, imagePath, ImageStatus.READY, null, null);
+        assertEquals(1, cityImageImporter.getImportedImages());
+    }
+
+    @Test
+    void importPendingImages_GivenCityChangedMeanwhile_ReleasesImageWithoutCountingIt() {
+        // given
+        var image = new DownloadedImage(Path.of("download.tmp"), "hash", 3);
+        when(restClient.fetchImage(imageUrl)).thenReturn(CompletableFuture.completedFuture(image));
+        when(imageStore.store(eq(image), any()))
+                .thenAnswer(invocation -> invocation.<Function<String, ?>>getArgument(1).apply(imagePath));
+        when(cityRepository.updateImportedImage(cityId, imagePath, ImageStatus.READY, null, null)).thenReturn(0);
+
+        // when
+        cityImageImporter.importPendingImages();
+
+        // then
+        verify(imageStore).release(imagePath);
+        verify(pageCache, never()).invalidate(cityId);
+        assertEquals(0, cityImageImporter.getImportedImages());
+    }
+
+    @Test
+    void importPendingImages_GivenUnavailableImage_MarksItFailed() {
+        // given
+        when(restClient.fetchImage(imageUrl))
+                .thenReturn(CompletableFuture.failedFuture(new ImageNotFoundException(imageUrl, new IOException("404"))));
+
+        // when
+        cityImageImporter.importPendingImages();
+
+        // then
+        verify(cityRepository).updateImportedImage(eq(cityId), eq(null), eq(ImageStatus.FAILED), eq(null), eq(null));
+        assertEquals(1, cityImageImporter.getFailedImages());
+    }
+
+    @Test
+    void importPendingImages_GivenOpenCircuitBreaker_KeepsCityPendingAndResumes() {
+        // given
+        var image = new DownloadedImage(Path.of("download.tmp"), "hash", 3);
+        when(restClient.fetchImage(imageUrl))
+                .thenReturn(CompletableFuture.failedFuture(
+                        new ImageNotFoundException(imageUrl, new WikimediaUnavailableException())))
+                .thenReturn(CompletableFuture.completedFuture(image));
+        when(imageStore.store(eq(image), any()))
+                .thenAnswer(invocation -> invocation.<Function<String, ?>>getArgument(1).apply(imagePath));
+        when(cityRepository.updateImportedImage(cityId, imagePath, ImageStatus.READY, null, null)).thenReturn(1);
+
+        // when
+        cityImageImporter.importPendingImages();
+
+        // then
+        verify(cityRepository, never()).updateImportedImage(any(), any(), eq(ImageStatus.FAILED), any(), any());
+        assertEquals(0, cityImageImporter.getFailedImages());
+        assertEquals(1, cityImageImporter.getImportedImages());
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.service.service;
+
+import com.example.service.dto.DownloadedImage;
+import com.example.service.entity.CityEntity;
+import com.example.service.entity.ImageStatus;
+import com.example.service.repository.CityRepository;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+class CityImageRefresherTest {
+
+    private final Long cityId = 7L;
+    private final String imageUrl = "city_image.jpg";
+    private final String etag = "\"v1\"";
+    private final String imagePath = "images/cities/city.jpg";
+
+    @Mock
+    private CityRepository cityRepository;
+
+    @Mock
+    private WikimediaRestClientService restClient;
+
+    @Mock
+    private DatabaseInitializerService databaseInitializerService;
+
+    @Mock
+    private CityImageCache imageCache;
+
+    @Mock
+    private CityPageCache pageCache;
+
+    @Mock
+    private CityImageStore imageStore;
+
+    @Mock
+    private ThreadPoolTaskExecutor cityImportExecutor;
+
+    @Spy
+    private Semaphore cityImportPermits = new Semaphore(1);
+
+    @InjectMocks
+    private CityImageRefresher cityImageRefresher;
+
+    @BeforeEach
+    void setup() {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(cityImportExecutor).execute(any(Runnable.class));
+        when(databaseInitializerService.getState()).thenReturn(ImportState.COMPLETED);
+        var importedCity = new CityEntity(cityId, "Tallinn", imagePath, "1", ImageStatus.READY, imageUrl, etag, null, null);
+        when(cityRepository.findRefreshableImages(anyLong(), any())).thenReturn(List.of(importedCity));
+    }
+
+    @Test
+    void refreshImages_GivenUnchangedImage_KeepsStoredImage() {
+        // given
+        when(restClient.revalidateImage(imageUrl, etag, null))
+                .thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+        // when
+        cityImageRefresher.refreshImages();
+
+        // then
+        verify(cityRepository, never()).updateRefreshedImage(anyLong(), anyString(), anyString(), any(), any());
+        verify(imageCache, never()).invalidate(cityId);
+    }
+
+    @Test
+    void refreshImages_GivenChangedImage_ReplacesStoredImage() {
+        // given
+        var newImagePath = "images/cities/new_city.jpg";
+        var image = new DownloadedImage(Path.of("download.tmp"), "hash", 3, "\"v2\"", null);
+        when(restClient.revalidateImage(imageUrl, etag, null))
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(image)));
+        when(imageStore.store(eq(image), any()))
+                .thenAnswer(invocation -> invocation.<Function<String, ?>>getArgument(1).apply(newImagePath));
+        when(cityRepository.updateRefreshedImage(cityId, imagePath, newImagePath, "\"v2\"", null)).thenReturn(1);
+
+        // when
+        cityImageRefresher.refreshImages();
+
+        // then
+        verify(imageStore).release(imagePath);
+        verify(cityRepository).updateRefreshedImage(cityId, imagePath, newImagePath, "\"v2\"", null);
+        verify(imageCache).invalidate(cityId);
+    }
+
+    @Test
+    void refreshImages_GivenRunningImport_DoesNothing() {
+        // given
+        when(databaseInitializerService.getState()).thenReturn(ImportState.RUNNING);
+
+        // when
+        cityImageRefresher.refreshImages();
+
+        // then
+        verify(cityRepository, never()).findRefreshableImages(anyLong(), any());
+    }
+}
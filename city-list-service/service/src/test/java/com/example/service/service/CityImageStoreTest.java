@@ -0,0 +1,118 @@
+package com.example.service.service;
+
+import com.example.service.config.ImageProperties;
+import com.example.service.repository.CityRepository;
+import com.example.service.utils.FileManager;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+class CityImageStoreTest {
+
+    @Mock
+    private CityRepository cityRepository;
+
+    @Mock
+    private ImageProperties imageProperties;
+
+    @InjectMocks
+    private CityImageStore imageStore;
+
+    @Test
+    void release_GivenImageSharedWithOtherCity_KeepsImage(@TempDir Path storage) throws IOException {
+        // given
+        var sharedImageFile = Files.write(storage.resolve("shared.jpg"), new byte[]{1, 2, 3});
+        when(cityRepository.countByImagePath(sharedImageFile.toString())).thenReturn(1L);
+
+        // when
+        imageStore.release(sharedImageFile.toString());
+
+        // then
+        assertTrue(Files.exists(sharedImageFile));
+    }
+
+    @Test
+    void release_GivenLastReferenceToImage_DeletesImage(@TempDir Path storage) throws IOException {
+        // given
+        var oldImageFile = Files.write(storage.resolve("old.jpg"), new byte[]{1, 2, 3});
+        when(cityRepository.countByImagePath(oldImageFile.toString())).thenReturn(0L);
+
+        // when
+        imageStore.release(oldImageFile.toString());
+
+        // then
+        assertFalse(Files.exists(oldImageFile));
+    }
+
+    @Test
+    void release_GivenImageBeingStored_KeepsImageForNewReference() throws Exception {
+        // given
+        var referenced = new AtomicBoolean();
+        when(cityRepository.countByImagePath(any())).thenAnswer(invocation -> referenced.get() ? 1L : 0L);
+        var storedImagePath = new AtomicReference<String>();
+        var releaseStarted = new CountDownLatch(1);
+
+        // when the file already exists, another city lets go of it while this one is about to refer to it
+        var release = imageStore.store(new byte[]{1, 2, 3}, imagePath -> {
+            storedImagePath.set(imagePath);
+            var concurrentRelease = CompletableFuture.runAsync(() -> {
+                releaseStarted.countDown();
+                imageStore.release(imagePath);
+            });
+            awaitQuietly(releaseStarted);
+            referenced.set(true);
+            return concurrentRelease;
+        });
+        release.get(5, TimeUnit.SECONDS);
+
+        // then
+        assertTrue(Files.exists(Path.of(storedImagePath.get())));
+
+        // clean
+        FileManager.deleteImage(storedImagePath.get());
+    }
+
+    @Test
+    void store_GivenReferenceSaveFails_DeletesStoredImage() {
+        // given
+        var storedImagePath = new AtomicReference<String>();
+        when(cityRepository.countByImagePath(any())).thenReturn(0L);
+
+        // when
+        assertThrows(IllegalStateException.class, () -> imageStore.store(new byte[]{4, 5, 6}, imagePath -> {
+            storedImagePath.set(imagePath);
+            throw new IllegalStateException("City could not be saved");
+        }));
+
+        // then
+        assertFalse(Files.exists(Path.of(storedImagePath.get())));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+            // gives a release that does not wait for the lock the time to delete the file
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
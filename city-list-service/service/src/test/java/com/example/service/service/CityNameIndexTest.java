@@ -0,0 +1,163 @@
+package com.example.service.service;
+
+import com.example.service.dto.CitySuggestion;
+import com.example.service.entity.CityEntity;
+import com.example.service.repository.CityRepository;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+class CityNameIndexTest {
+
+    private final String picturePath = "path/to/city";
+
+    @Mock
+    private CityRepository cityRepository;
+
+    @InjectMocks
+    private CityNameIndex cityNameIndex;
+
+    @Test
+    void findIdsContaining_GivenTermInOtherCase_ReturnsMatchingIdsInOrder() {
+        // given
+        buildIndex(new CityEntity(1L, "Tallinn", picturePath),
+                new CityEntity(2L, "Tartu", picturePath),
+                new CityEntity(3L, "New Tallinn", picturePath));
+
+        // when
+        var ids = cityNameIndex.findIdsContaining("TALL");
+
+        // then
+        assertThat(ids).contains(List.of(1L, 3L));
+    }
+
+    @Test
+    void findIdsContaining_GivenNameWithAllTrigramsButNotTheTerm_ReturnsNoMatch() {
+        // given
+        buildIndex(new CityEntity(1L, "abcab", picturePath));
+
+        // when
+        var ids = cityNameIndex.findIdsContaining("cabc");
+
+        // then
+        assertThat(ids).contains(List.of());
+    }
+
+    @Test
+    void findIdsContaining_GivenTermWithoutAccents_ReturnsAccentedNames() {
+        // given
+        buildIndex(new CityEntity(1L, "São Paulo", picturePath),
+                new CityEntity(2L, "Zürich", picturePath));
+
+        // when
+        var ids = cityNameIndex.findIdsContaining("sao");
+
+        // then
+        assertThat(ids).contains(List.of(1L));
+    }
+
+    @Test
+    void findIdsContaining_GivenTermShorterThanTrigram_ReturnsEmpty() {
+        // given
+        buildIndex(new CityEntity(1L, "Tallinn", picturePath));
+
+        // when
+        var ids = cityNameIndex.findIdsContaining("ta");
+
+        // then
+        assertThat(ids).isEmpty();
+    }
+
+    @Test
+    void findIdsContaining_GivenIndexNotBuilt_ReturnsEmpty() {
+        // when
+        var ids = cityNameIndex.findIdsContaining("tallinn");
+
+        // then
+        assertThat(ids).isEmpty();
+    }
+
+    @Test
+    void put_GivenRenamedCity_FindsItOnlyByNewName() {
+        // given
+        buildIndex(new CityEntity(1L, "Tallinn", picturePath));
+
+        // when
+        cityNameIndex.put(new CityEntity(1L, "Reval", picturePath));
+
+        // then
+        assertThat(cityNameIndex.findIdsContaining("tallinn")).contains(List.of());
+        assertThat(cityNameIndex.findIdsContaining("reval")).contains(List.of(1L));
+    }
+
+    @Test
+    void remove_GivenIndexedCity_FindsItNoMore() {
+        // given
+        buildIndex(new CityEntity(1L, "Tallinn", picturePath),
+                new CityEntity(2L, "New Tallinn", picturePath));
+
+        // when
+        cityNameIndex.remove(1L);
+
+        // then
+        assertThat(cityNameIndex.findIdsContaining("tallinn")).contains(List.of(2L));
+        assertThat(cityNameIndex.findStartingWith("tallinn", 10)).contains(List.of());
+        assertThat(cityNameIndex.findIdsSimilarTo("tallinn", 0)).contains(List.of());
+    }
+
+    @Test
+    void findStartingWith_GivenPrefix_ReturnsCitiesOrderedByNameUpToLimit() {
+        // given
+        buildIndex(new CityEntity(1L, "Tartu", picturePath),
+                new CityEntity(2L, "Tallinn", picturePath),
+                new CityEntity(3L, "Taipei", picturePath),
+                new CityEntity(4L, "Tokyo", picturePath));
+
+        // when
+        var suggestions = cityNameIndex.findStartingWith("ta", 2);
+
+        // then
+        assertThat(suggestions).contains(List.of(new CitySuggestion(3L, "Taipei"), new CitySuggestion(2L, "Tallinn")));
+    }
+
+    @Test
+    void findStartingWith_GivenRenamedCity_ReturnsNewName() {
+        // given
+        buildIndex(new CityEntity(1L, "tallinn", picturePath));
+
+        // when
+        cityNameIndex.put(new CityEntity(1L, "Tallinn", picturePath));
+
+        // then
+        assertThat(cityNameIndex.findStartingWith("Tal", 10)).contains(List.of(new CitySuggestion(1L, "Tallinn")));
+    }
+
+    @Test
+    void findIdsSimilarTo_GivenMisspelledName_ReturnsClosestNamesFirst() {
+        // given
+        buildIndex(new CityEntity(1L, "Jakarta", picturePath),
+                new CityEntity(2L, "Jakarta Pusat", picturePath),
+                new CityEntity(3L, "Makati", picturePath),
+                new CityEntity(4L, "Jakart", picturePath));
+
+        // when
+        var ids = cityNameIndex.findIdsSimilarTo("jakrta", 2);
+
+        // then
+        assertThat(ids).contains(List.of(1L, 4L));
+    }
+
+    private void buildIndex(CityEntity... cities) {
+        when(cityRepository.findByIdGreaterThanOrderById(anyLong(), any())).thenReturn(List.of(cities));
+        cityNameIndex.build();
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.service.service;
+
+import com.example.service.config.ListingProperties;
+import com.example.service.dto.CitiesPaginationResponse;
+import com.example.service.dto.CityResponse;
+import com.example.service.entity.CityEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static com.example.service.service.CityPageCache.Listing.FUZZY_SEARCH;
+import static com.example.service.service.CityPageCache.Listing.PAGE;
+import static com.example.service.service.CityPageCache.Listing.SEARCH;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+class CityPageCacheTest {
+
+    private final String picturePath = "path/to/city";
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CityNameIndex cityNameIndex = mock(CityNameIndex.class);
+    private final CityPageCache pageCache = new CityPageCache(
+            new ListingProperties(Duration.ofMinutes(1), 10, 2, Duration.ofMinutes(1), 10),
+            cityNameIndex,
+            meterRegistry
+    );
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void get_GivenSameTermWithOtherCaseAndAccents_LoadsOnce() {
+        // when
+        pageCache.get(SEARCH, 1, "São Paulo", () -> load(1L));
+        pageCache.get(SEARCH, 1, "SAO PAULO", () -> load(1L));
+
+        // then
+        assertEquals(1, loads.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void get_GivenNameIndexBuiltMeanwhile_DoesNotServePageOfDB() {
+        // given
+        pageCache.get(FUZZY_SEARCH, 1, "Talinn", () -> load(1L));
+        when(cityNameIndex.isReady()).thenReturn(true);
+
+        // when
+        pageCache.get(FUZZY_SEARCH, 1, "Talinn", () -> load(1L));
+        pageCache.get(FUZZY_SEARCH, 1, "Talinn", () -> load(1L));
+
+        // then
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_GivenInvalidationDuringLoad_DoesNotKeepResponse() {
+        // when
+        pageCache.get(PAGE, 1, "", () -> {
+            pageCache.invalidate(1L);
+            return load(1L);
+        });
+        pageCache.get(PAGE, 1, "", () -> load(1L));
+
+        // then
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidate_GivenUnchangedName_EvictsOnlyEntriesListingTheCity() {
+        // given
+        var tallinn = new CityEntity(1L, "Tallinn", picturePath);
+        pageCache.get(PAGE, 1, "", () -> load(1L));
+        pageCache.get(PAGE, 2, "", () -> load(2L));
+        pageCache.get(SEARCH, 2, "tal", () -> load(2L));
+
+        // when
+        pageCache.invalidate(tallinn, new CityEntity(1L, "TALLINN", "path/to/new"));
+        pageCache.get(PAGE, 1, "", () -> load(1L));
+        pageCache.get(PAGE, 2, "", () -> load(2L));
+        pageCache.get(SEARCH, 2, "tal", () -> load(2L));
+
+        // then
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void invalidate_GivenRenamedCity_EvictsEntriesOfTermsMatchingOldOrNewName() {
+        // given
+        pageCache.get(SEARCH, 2, "tal", () -> load(2L));
+        pageCache.get(SEARCH, 1, "reva", () -> load(2L));
+        pageCache.get(FUZZY_SEARCH, 1, "revel", () -> load(2L));
+        pageCache.get(SEARCH, 1, "tartu", () -> load(2L));
+        pageCache.get(PAGE, 2, "", () -> load(2L));
+
+        // when
+        pageCache.invalidate(new CityEntity(1L, "Tallinn", picturePath), new CityEntity(1L, "Reval", picturePath));
+        pageCache.get(SEARCH, 2, "tal", () -> load(2L));
+        pageCache.get(SEARCH, 1, "reva", () -> load(2L));
+        pageCache.get(FUZZY_SEARCH, 1, "revel", () -> load(2L));
+        pageCache.get(SEARCH, 1, "tartu", () -> load(2L));
+        pageCache.get(PAGE, 2, "", () -> load(2L));
+
+        // then
+        assertEquals(8, loads.get());
+    }
+
+    @Test
+    void invalidateAll_LoadsAgain() {
+        // given
+        pageCache.get(PAGE, 1, "", () -> load(1L));
+
+        // when
+        pageCache.invalidateAll();
+        pageCache.get(PAGE, 1, "", () -> load(1L));
+
+        // then
+        assertEquals(2, loads.get());
+    }
+
+    private CitiesPaginationResponse load(Long id) {
+        loads.incrementAndGet();
+        return new CitiesPaginationResponse(List.of(new CityResponse(id, "City " + id, picturePath)), 1, 1, 1);
+    }
+}
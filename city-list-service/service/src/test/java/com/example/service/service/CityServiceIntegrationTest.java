@@ -8,6 +8,7 @@ import com.example.service.exception.CityNotFoundException;
 import com.example.service.exception.ImageNotFoundException;
 import com.example.service.repository.CityRepository;
 import com.example.service.utils.FileManager;
+import com.google.common.hash.Hashing;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
@@ -41,6 +42,12 @@ class CityServiceIntegrationTest {
     @Autowired
     private CityRepository cityRepository;
 
+    @Autowired
+    private CityPageCache pageCache;
+
+    @Autowired
+    private CityNameIndex cityNameIndex;
+
     private final Long cityId = 123L;
     private final String cityName = "Tallinn";
     private final String imagePath = "path/to/tallinn";
@@ -55,14 +62,16 @@ class CityServiceIntegrationTest {
 
     @BeforeEach
     void setup() {
+        cityRepository.findAll().forEach(city -> cityNameIndex.remove(city.getId()));
         cityRepository.deleteAll();
+        pageCache.invalidateAll();
     }
 
 
     @Test
     void updateCity_GivenValidDataWithoutImage_UpdatesTheData() throws Exception {
         // given
-        var existentCityEntity = cityRepository.save(new CityEntity(null, cityName, imagePath));
+        var existentCityEntity = saveCity(new CityEntity(null, cityName, imagePath));
 
         var cityUpdateRequest = new CityUpdateRequest("new city name");
         var expectedCityResponse = new CityResponse(existentCityEntity.getId(), "new city name", imagePath);
@@ -77,7 +86,7 @@ class CityServiceIntegrationTest {
     @Test
     void updateCity_GivenValidDataWithImage_UpdatesTheData() throws Exception {
         // given
-        var existentCityEntity = cityRepository.save(new CityEntity(null, cityName, imagePath));
+        var existentCityEntity = saveCity(new CityEntity(null, cityName, imagePath));
 
         var cityUpdateRequest = new CityUpdateRequest("new city name");
         var expectedCityResponse = new CityResponse(existentCityEntity.getId(), "new city name", "new image path");
@@ -112,14 +121,14 @@ class CityServiceIntegrationTest {
     @Test
     void getImageById_GivenValidCityID_ReturnsImage() throws IOException {
         // given
-        String imagePath = FileManager.saveImageToFileStorage(image.getBytes(), cityName);
-        CityEntity cityEntity = cityRepository.save(new CityEntity(null, cityName, imagePath));
+        String imagePath = FileManager.saveImageToFileStorage(image.getBytes(), Hashing.sha256().hashBytes(image.getBytes()).toString());
+        CityEntity cityEntity = saveCity(new CityEntity(null, cityName, imagePath));
 
         // when
-        var actualImageResponse = cityService.getImageById(cityEntity.getId());
+        var actualImageResponse = cityService.getImageById(cityEntity.getId(), null);
 
         // then
-        assertThat(actualImageResponse).isNotEmpty();
+        assertThat(actualImageResponse.getImage().contentLength()).isEqualTo(image.getSize());
 
         // clean
         FileManager.deleteImage(cityEntity.getImagePath());
@@ -132,7 +141,7 @@ class CityServiceIntegrationTest {
 
         // when
         var exception = assertThrows(
-                CityNotFoundException.class, () -> cityService.getImageById(cityId)
+                CityNotFoundException.class, () -> cityService.getImageById(cityId, null)
         );
         var actualExceptionMessage = exception.getMessage();
 
@@ -144,12 +153,12 @@ class CityServiceIntegrationTest {
     @Test
     void getImageById_GivenFileNotFound_ThrowsException() {
         // given
-        var cityEntity = cityRepository.save(new CityEntity(null, cityName, imagePath));
+        var cityEntity = saveCity(new CityEntity(null, cityName, imagePath));
         var expectedExceptionMessage = String.format(IMAGE_NOT_FOUND_EXCEPTION_MESSAGE, imagePath);
 
         // when
         var exception = assertThrows(
-                ImageNotFoundException.class, () -> cityService.getImageById(cityEntity.getId())
+                ImageNotFoundException.class, () -> cityService.getImageById(cityEntity.getId(), null)
         );
         var actualExceptionMessage = exception.getMessage();
 
@@ -164,7 +173,7 @@ class CityServiceIntegrationTest {
         var cityEntity1 = new CityEntity(null, cityName, imagePath);
         var cityEntity2 = new CityEntity(null, cityName, imagePath);
         var cityEntityList = List.of(cityEntity1, cityEntity2);
-        cityRepository.saveAll(cityEntityList);
+        saveCities(cityEntityList);
 
         var expectedTotalPages = 1;
         var expectedCurrentPage = 1;
@@ -186,7 +195,7 @@ class CityServiceIntegrationTest {
         var cityEntity1 = new CityEntity(null, "Tallinn", imagePath);
         var cityEntity2 = new CityEntity(null, "ttallinNn", imagePath);
         var cityEntity3 = new CityEntity(null, "city with different name", imagePath);
-        cityRepository.saveAll(List.of(cityEntity1, cityEntity2, cityEntity3));
+        saveCities(List.of(cityEntity1, cityEntity2, cityEntity3));
 
         var expectedTotalPages = 1;
         var expectedCurrentPage = 1;
@@ -211,7 +220,7 @@ class CityServiceIntegrationTest {
         // given
         var searchKey = "tallinn";
         var pageRequest = PageRequest.of(0, PAGE_SIZE);
-        cityRepository.saveAll(List.of(new CityEntity(null, "city with different name", imagePath)));
+        saveCities(List.of(new CityEntity(null, "city with different name", imagePath)));
         var expectedTotalPages = 0;
         var expectedCurrentPage = 0;
         var expectedTotalElements = 0;
@@ -225,4 +234,17 @@ class CityServiceIntegrationTest {
         assertThat(actualCitiesResponse.getTotalPages()).isEqualTo(expectedTotalPages);
         assertThat(actualCitiesResponse.getTotalElements()).isEqualTo(expectedTotalElements);
     }
+
+    // cities saved past the service are indexed the way the service and the import index them
+    private CityEntity saveCity(CityEntity city) {
+        var savedCity = cityRepository.save(city);
+        cityNameIndex.put(savedCity);
+        return savedCity;
+    }
+
+    private List<CityEntity> saveCities(List<CityEntity> cities) {
+        var savedCities = cityRepository.saveAll(cities);
+        cityNameIndex.putAll(savedCities);
+        return savedCities;
+    }
 }
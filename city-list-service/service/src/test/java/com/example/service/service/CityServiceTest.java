@@ -1,38 +1,67 @@
 package com.example.service.service;
 
+import com.example.service.config.ImageProperties;
+import com.example.service.config.ListingProperties;
+import com.example.service.dto.CitiesCursorResponse;
 import com.example.service.dto.CitiesPaginationResponse;
+import com.example.service.dto.CitiesSliceResponse;
+import com.example.service.dto.CityCursor;
+import com.example.service.dto.CityImage;
 import com.example.service.dto.CityResponse;
+import com.example.service.dto.CitySuggestion;
 import com.example.service.dto.CityUpdateRequest;
 import com.example.service.entity.CityEntity;
+import com.example.service.entity.ImageStatus;
 import com.example.service.exception.CityNotFoundException;
+import com.example.service.exception.ImageNotFoundException;
+import com.example.service.exception.InvalidCursorException;
+import com.example.service.exception.InvalidImageWidthException;
 import com.example.service.exception.InvalidPageNumberException;
 import com.example.service.repository.CityRepository;
-import com.example.service.utils.FileManager;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.MockedStatic;
-import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.util.unit.DataSize;
 
 import static com.example.service.exception.CityNotFoundException.CITY_NOT_FOUND_EXCEPTION_MESSAGE;
+import static com.example.service.exception.ImageNotFoundException.IMAGE_NOT_FOUND_EXCEPTION_MESSAGE;
+import static com.example.service.exception.InvalidCursorException.INVALID_CURSOR_EXCEPTION_MESSAGE;
+import static com.example.service.exception.InvalidImageWidthException.INVALID_IMAGE_WIDTH_EXCEPTION_MESSAGE;
 import static com.example.service.exception.InvalidPageNumberException.INVALID_PAGE_NUMBER_EXCEPTION_MESSAGE;
 import static com.example.service.service.CityServiceImpl.PAGE_SIZE;
+import static com.example.service.service.CityServiceImpl.SUGGESTION_LIMIT;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -45,6 +74,34 @@ class CityServiceTest {
     @Mock
     private CityRepository repository;
 
+    @Mock
+    private CityImageStore imageStore;
+
+    @Spy
+    private CityImageCache imageCache = new CityImageCache(
+            new ImageProperties(Duration.ZERO, true, DataSize.ofMegabytes(10), DataSize.ofMegabytes(1), List.of()),
+            new SimpleMeterRegistry()
+    );
+
+    @Mock
+    private CityCountCache countCache;
+
+    @Spy
+    private CityPageCache pageCache = new CityPageCache(
+            new ListingProperties(Duration.ofMinutes(1), 10, 2, Duration.ofMinutes(1), 10),
+            mock(CityNameIndex.class),
+            new SimpleMeterRegistry()
+    );
+
+    @Mock
+    private CityNameIndex cityNameIndex;
+
+    @Mock
+    private ImageProperties imageProperties;
+
+    @Mock
+    private ListingProperties listingProperties;
+
     @InjectMocks
     private CityServiceImpl cityService;
 
@@ -77,6 +134,8 @@ class CityServiceTest {
 
         // then
         assertEquals(expectedCityResponse, actualCityResponse);
+        verify(imageCache).invalidate(cityId);
+        verify(pageCache).invalidate(cityEntityById, cityEntity);
     }
 
     @Test
@@ -87,20 +146,32 @@ class CityServiceTest {
 
         var cityUpdateRequest = new CityUpdateRequest(cityName);
         var cityEntity = new CityEntity(cityId, cityName, picturePath);
-        when(repository.save(any())).thenReturn(cityEntity);
+        when(repository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        storeImageAs("new_image_path.jpg");
 
-        var expectedCityResponse = new CityResponse(cityId, cityName, "Tallinn_");
+        var expectedCityResponse = new CityResponse(cityId, cityName, "new_image_path.jpg");
 
         // when
         var actualCityResponse = cityService.update(cityId, image, cityUpdateRequest);
 
-        try (MockedStatic<FileManager> mockedFileManager = Mockito.mockStatic(FileManager.class)) {
-            mockedFileManager.when(() -> FileManager.saveImageToFileStorage(any(), any()))
-                    .thenReturn("new_image_path.jpg");
+        // then
+        assertEquals(expectedCityResponse, actualCityResponse);
+        verify(imageStore).release(picturePath);
+    }
 
-            assertEquals(expectedCityResponse.getId(), actualCityResponse.getId());
-            assertEquals(expectedCityResponse.getName(), actualCityResponse.getName());
-        }
+    @Test
+    void update_GivenSameImage_KeepsImage() throws IOException {
+        // given
+        var cityEntityById = new CityEntity(cityId, "old city name", picturePath);
+        when(repository.findById(cityId)).thenReturn(Optional.of(cityEntityById));
+        when(repository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        storeImageAs(picturePath);
+
+        // when
+        cityService.update(cityId, image, new CityUpdateRequest(cityName));
+
+        // then
+        verify(imageStore, never()).release(any());
     }
 
     @Test
@@ -121,6 +192,129 @@ class CityServiceTest {
         assertEquals(expectedExceptionMessage, actualExceptionMessage);
     }
 
+    @Test
+    void getImageById_GivenValidCityId_ReturnsImageWithValidators(@TempDir Path storage) throws IOException {
+        // given
+        var imageFile = Files.write(storage.resolve("Tallinn.jpg"), image.getBytes());
+        var lastModified = Files.getLastModifiedTime(imageFile).toMillis();
+        var expectedETag = String.format("%x-%x", image.getSize(), lastModified);
+        when(repository.findById(cityId)).thenReturn(Optional.of(new CityEntity(cityId, cityName, imageFile.toString())));
+
+        // when
+        var actualCityImage = cityService.getImageById(cityId, null);
+
+        // then
+        assertEquals(expectedETag, actualCityImage.getETag());
+        assertEquals(lastModified, actualCityImage.getLastModified());
+        assertEquals(image.getSize(), actualCityImage.getImage().contentLength());
+        assertEquals(actualCityImage.getETag(), cityService.getImageById(cityId, null).getETag());
+        verify(repository).findById(cityId);
+    }
+
+    @Test
+    void getImageById_GivenImageStillImporting_ReturnsPlaceholder() throws IOException {
+        // given
+        var pendingCity = new CityEntity(cityId, cityName, null, "1", ImageStatus.PENDING, "city_image.jpg", null, null, null);
+        when(repository.findById(cityId)).thenReturn(Optional.of(pendingCity));
+
+        // when
+        var actualCityImage = cityService.getImageById(cityId, null);
+
+        // then
+        assertTrue(actualCityImage.isPlaceholder());
+        assertTrue(actualCityImage.getImage().contentLength() > 0);
+        cityService.getImageById(cityId, null);
+        verify(repository, times(2)).findById(cityId);
+    }
+
+    @Test
+    void getImageById_GivenCachedImage_SkipsRepository() {
+        // given
+        var cachedImage = new CityImage(new ByteArrayResource(new byte[]{1, 2, 3}), "3-1", 1L);
+        imageCache.get(cityId, 0, () -> cachedImage);
+
+        // when
+        var actualCityImage = cityService.getImageById(cityId, null);
+
+        // then
+        assertEquals(cachedImage, actualCityImage);
+        verify(repository, never()).findById(any());
+    }
+
+    @Test
+    void getImageById_GivenContentAddressedImage_ReturnsHashAsETag(@TempDir Path storage) throws IOException {
+        // given
+        var imageHash = Hashing.sha256().hashBytes(image.getBytes()).toString();
+        var imageFile = Files.write(storage.resolve(imageHash + ".jpg"), image.getBytes());
+        when(repository.findById(cityId)).thenReturn(Optional.of(new CityEntity(cityId, cityName, imageFile.toString())));
+
+        // when
+        var actualCityImage = cityService.getImageById(cityId, null);
+
+        // then
+        assertEquals(imageHash, actualCityImage.getETag());
+    }
+
+    @Test
+    void getImageById_GivenWidth_ReturnsSmallestMatchingDerivative(@TempDir Path storage) throws IOException {
+        // given
+        var imageFile = Files.write(storage.resolve("Tallinn.jpg"), image.getBytes());
+        var derivativeFile = Files.write(storage.resolve("Tallinn_320.jpg"), new byte[]{1, 2, 3});
+        when(imageProperties.getDerivativeWidths()).thenReturn(List.of(160, 320));
+        when(repository.findById(cityId)).thenReturn(Optional.of(new CityEntity(cityId, cityName, imageFile.toString())));
+
+        // when
+        var actualCityImage = cityService.getImageById(cityId, 200);
+
+        // then
+        assertEquals(Files.size(derivativeFile), actualCityImage.getImage().contentLength());
+        verify(imageCache).get(eq(cityId), eq(320), any());
+    }
+
+    @Test
+    void getImageById_GivenMissingDerivative_ReturnsOriginal(@TempDir Path storage) throws IOException {
+        // given
+        var imageFile = Files.write(storage.resolve("Tallinn.jpg"), image.getBytes());
+        when(imageProperties.getDerivativeWidths()).thenReturn(List.of(160, 320));
+        when(repository.findById(cityId)).thenReturn(Optional.of(new CityEntity(cityId, cityName, imageFile.toString())));
+
+        // when
+        var actualCityImage = cityService.getImageById(cityId, 160);
+
+        // then
+        assertEquals(image.getSize(), actualCityImage.getImage().contentLength());
+    }
+
+    @Test
+    void getImageById_GivenInvalidWidth_ThrowsException() {
+        // given
+        var expectedExceptionMessage = String.format(INVALID_IMAGE_WIDTH_EXCEPTION_MESSAGE, 0);
+
+        // when
+        var exception = assertThrows(
+                InvalidImageWidthException.class, () -> cityService.getImageById(cityId, 0)
+        );
+
+        // then
+        verify(repository, never()).findById(any());
+        assertEquals(expectedExceptionMessage, exception.getMessage());
+    }
+
+    @Test
+    void getImageById_GivenMissingImageFile_ThrowsException() {
+        // given
+        var expectedExceptionMessage = String.format(IMAGE_NOT_FOUND_EXCEPTION_MESSAGE, picturePath);
+        when(repository.findById(cityId)).thenReturn(Optional.of(new CityEntity(cityId, cityName, picturePath)));
+
+        // when
+        var exception = assertThrows(
+                ImageNotFoundException.class, () -> cityService.getImageById(cityId, null)
+        );
+
+        // then
+        assertEquals(expectedExceptionMessage, exception.getMessage());
+    }
+
     @Test
     void getCitiesByPage_GivenValidPageNumber_ReturnsCityData() {
         // given
@@ -128,18 +322,17 @@ class CityServiceTest {
         var totalElements = 2;
         var pageRequest = PageRequest.of(--page, PAGE_SIZE);
 
-        var cityEntity = new CityEntity(cityId, cityName, picturePath);
-        var content = List.of(cityEntity, cityEntity);
-        var entityPage = new PageImpl<>(content, pageRequest, totalElements);
+        var response = new CityResponse(cityId, cityName, picturePath);
+        var content = List.of(response, response);
+        var responsePage = new PageImpl<>(content, pageRequest, totalElements);
 
-        when(repository.findAll(pageRequest)).thenReturn(entityPage);
+        when(repository.findResponseSliceBy(pageRequest)).thenReturn(new SliceImpl<>(content, pageRequest, false));
 
-        var response = new CityResponse(cityId, cityName, picturePath);
         var expectedCitiesResponse = new CitiesPaginationResponse(
-                List.of(response, response),
+                content,
                 ++page,
-                entityPage.getTotalPages(),
-                entityPage.getTotalElements()
+                responsePage.getTotalPages(),
+                responsePage.getTotalElements()
         );
 
         // when
@@ -149,6 +342,22 @@ class CityServiceTest {
         assertEquals(expectedCitiesResponse, actualCitiesResponse);
     }
 
+    @Test
+    void getCitiesByPage_GivenSamePageTwice_QueriesOnce() {
+        // given
+        var pageRequest = PageRequest.of(0, PAGE_SIZE);
+        var content = List.of(new CityResponse(cityId, cityName, picturePath));
+        when(repository.findResponseSliceBy(pageRequest)).thenReturn(new SliceImpl<>(content, pageRequest, false));
+
+        // when
+        var firstResponse = cityService.getCitiesByPage(1);
+        var secondResponse = cityService.getCitiesByPage(1);
+
+        // then
+        assertEquals(firstResponse, secondResponse);
+        verify(repository, times(1)).findResponseSliceBy(pageRequest);
+    }
+
 
     @Test
     void getCitiesByPage_GivenInvalidPageNumber_ThrowsException() {
@@ -172,16 +381,17 @@ class CityServiceTest {
         // given
         var page = 1;
         var pageRequest = PageRequest.of(--page, PAGE_SIZE);
-        var content = List.of(new CityEntity(cityId, cityName, picturePath));
-        Page<CityEntity> entityPage = new PageImpl<>(content, pageRequest, 1);
+        var content = List.of(new CityResponse(cityId, cityName, picturePath));
+        Page<CityResponse> responsePage = new PageImpl<>(content, pageRequest, 1);
 
-        when(repository.findAllByNameIsContainingIgnoreCase(cityName, pageRequest)).thenReturn(entityPage);
+        when(repository.findResponseSliceBySearchNameContaining("tallinn", pageRequest))
+                .thenReturn(new SliceImpl<>(content, pageRequest, false));
 
         var expectedCitiesResponse = new CitiesPaginationResponse(
-                List.of(new CityResponse(cityId, cityName, picturePath)),
+                content,
                 ++page,
-                entityPage.getTotalPages(),
-                entityPage.getTotalElements()
+                responsePage.getTotalPages(),
+                responsePage.getTotalElements()
         );
 
         // when
@@ -196,15 +406,16 @@ class CityServiceTest {
         // given
         var page = 1;
         var pageRequest = PageRequest.of(page - 1, PAGE_SIZE);
-        Page<CityEntity> entityPage = new PageImpl<>(Collections.emptyList(), pageRequest, 0);
+        Page<CityResponse> responsePage = new PageImpl<>(Collections.emptyList(), pageRequest, 0);
 
-        when(repository.findAllByNameIsContainingIgnoreCase(cityName, pageRequest)).thenReturn(entityPage);
+        when(repository.findResponseSliceBySearchNameContaining("tallinn", pageRequest))
+                .thenReturn(new SliceImpl<>(Collections.emptyList(), pageRequest, false));
 
         var expectedCitiesResponse = new CitiesPaginationResponse(
                 Collections.emptyList(),
                 0,
-                entityPage.getTotalPages(),
-                entityPage.getTotalElements()
+                responsePage.getTotalPages(),
+                responsePage.getTotalElements()
         );
 
         // when
@@ -214,4 +425,183 @@ class CityServiceTest {
         assertEquals(expectedCitiesResponse, actualCitiesResponse);
     }
 
+    @Test
+    void getCitiesByPageAndName_GivenFullPage_TakesTotalFromCountCache() {
+        // given
+        var pageRequest = PageRequest.of(0, PAGE_SIZE);
+        var content = LongStream.rangeClosed(1, PAGE_SIZE)
+                .mapToObj(id -> new CityResponse(id, cityName, picturePath))
+                .collect(Collectors.toList());
+        when(repository.findResponseSliceBySearchNameContaining("tallinn", pageRequest))
+                .thenReturn(new SliceImpl<>(content, pageRequest, true));
+        when(countCache.get(eq(cityName), any())).thenReturn(30L);
+
+        // when
+        var actualCitiesResponse = cityService.getCitiesByPageAndName(1, cityName);
+
+        // then
+        assertEquals(30L, actualCitiesResponse.getTotalElements());
+        assertEquals(3, actualCitiesResponse.getTotalPages());
+        verify(repository, never()).countBySearchNameContaining("tallinn");
+    }
+
+    @Test
+    void getCitiesByPageAndName_GivenIndexedTerm_LoadsOnlyThePageById() {
+        // given
+        var matchingIds = LongStream.rangeClosed(1, PAGE_SIZE + 2).boxed().collect(Collectors.toList());
+        when(cityNameIndex.findIdsContaining(cityName)).thenReturn(Optional.of(matchingIds));
+        when(repository.findResponsesByIdIn(List.of(13L, 14L))).thenReturn(List.of(
+                new CityResponse(14L, cityName, picturePath), new CityResponse(13L, cityName, picturePath)));
+        var expectedCitiesResponse = new CitiesPaginationResponse(
+                List.of(new CityResponse(13L, cityName, picturePath), new CityResponse(14L, cityName, picturePath)),
+                2, 2, PAGE_SIZE + 2);
+
+        // when
+        var actualCitiesResponse = cityService.getCitiesByPageAndName(2, cityName);
+
+        // then
+        assertEquals(expectedCitiesResponse, actualCitiesResponse);
+        verify(repository, never()).findResponseSliceBySearchNameContaining(any(), any());
+    }
+
+    @Test
+    void getCitiesByPageAndSimilarName_GivenMisspelledName_ReturnsClosestCitiesFirst() {
+        // given
+        when(listingProperties.getFuzzyMaxEditDistance()).thenReturn(2);
+        when(cityNameIndex.findIdsSimilarTo("Jakrta", 2)).thenReturn(Optional.of(List.of(2L, 1L)));
+        when(repository.findResponsesByIdIn(List.of(2L, 1L))).thenReturn(List.of(
+                new CityResponse(1L, "Jakarta Barat", picturePath), new CityResponse(2L, "Jakarta", picturePath)));
+        var expectedCitiesResponse = new CitiesPaginationResponse(
+                List.of(new CityResponse(2L, "Jakarta", picturePath), new CityResponse(1L, "Jakarta Barat", picturePath)),
+                1, 1, 2);
+
+        // when
+        var actualCitiesResponse = cityService.getCitiesByPageAndSimilarName(1, "Jakrta");
+
+        // then
+        assertEquals(expectedCitiesResponse, actualCitiesResponse);
+    }
+
+    @Test
+    void getCitiesSliceByPage_GivenMoreCities_ReturnsSliceWithoutCounting() {
+        // given
+        var pageRequest = PageRequest.of(0, PAGE_SIZE);
+        var content = List.of(new CityResponse(cityId, cityName, picturePath));
+        when(repository.findResponseSliceBy(pageRequest)).thenReturn(new SliceImpl<>(content, pageRequest, true));
+        var expectedCitiesResponse = new CitiesSliceResponse(content, 1, true);
+
+        // when
+        var actualCitiesResponse = cityService.getCitiesSliceByPage(1);
+
+        // then
+        assertEquals(expectedCitiesResponse, actualCitiesResponse);
+        verify(repository, never()).count();
+        verify(countCache, never()).get(any(), any());
+    }
+
+    @Test
+    void getCitiesAfter_GivenMoreCitiesThanPage_ReturnsPageWithNextCursor() {
+        // given
+        var cities = LongStream.rangeClosed(1, PAGE_SIZE + 1)
+                .mapToObj(id -> new CityEntity(id, cityName, picturePath))
+                .collect(Collectors.toList());
+        when(repository.findByIdGreaterThanOrderById(0L, PageRequest.ofSize(PAGE_SIZE + 1))).thenReturn(cities);
+
+        // when
+        var actualCitiesResponse = cityService.getCitiesAfter(null);
+
+        // then
+        assertEquals(PAGE_SIZE, actualCitiesResponse.getCities().size());
+        assertEquals(new CityCursor((long) PAGE_SIZE, null), CityCursor.decode(actualCitiesResponse.getNext()));
+    }
+
+    @Test
+    void getCitiesAfter_GivenCursor_ReturnsLastPageWithoutNextCursor() {
+        // given
+        var cursor = new CityCursor(cityId, null).encode();
+        when(repository.findByIdGreaterThanOrderById(cityId, PageRequest.ofSize(PAGE_SIZE + 1)))
+                .thenReturn(List.of(new CityEntity(cityId + 1, cityName, picturePath)));
+        var expectedCitiesResponse = new CitiesCursorResponse(
+                List.of(new CityResponse(cityId + 1, cityName, picturePath)), null);
+
+        // when
+        var actualCitiesResponse = cityService.getCitiesAfter(cursor);
+
+        // then
+        assertEquals(expectedCitiesResponse, actualCitiesResponse);
+    }
+
+    @Test
+    void getCitiesByNameAfter_GivenMoreMatchesThanPage_ReturnsCursorWithLastName() {
+        // given
+        var cities = LongStream.rangeClosed(1, PAGE_SIZE + 1)
+                .mapToObj(id -> new CityEntity(id, cityName, picturePath))
+                .collect(Collectors.toList());
+        var cursor = new CityCursor(cityId, "Tal").encode();
+        when(repository.findByNameContainingAfter("tallinn", "Tal", cityId, PageRequest.ofSize(PAGE_SIZE + 1)))
+                .thenReturn(cities);
+
+        // when
+        var actualCitiesResponse = cityService.getCitiesByNameAfter(cursor, cityName);
+
+        // then
+        assertEquals(new CityCursor((long) PAGE_SIZE, cityName), CityCursor.decode(actualCitiesResponse.getNext()));
+    }
+
+    @Test
+    void getCitiesAfter_GivenMalformedCursor_ThrowsException() {
+        // given
+        var cursor = "not a cursor";
+        var expectedExceptionMessage = String.format(INVALID_CURSOR_EXCEPTION_MESSAGE, cursor);
+
+        // when
+        var exception = assertThrows(InvalidCursorException.class, () -> cityService.getCitiesAfter(cursor));
+
+        // then
+        assertEquals(expectedExceptionMessage, exception.getMessage());
+    }
+
+    @Test
+    void getCitiesAfter_GivenCursorOfNameSearch_ThrowsException() {
+        // given
+        var cursor = new CityCursor(cityId, cityName).encode();
+
+        // when
+        assertThrows(InvalidCursorException.class, () -> cityService.getCitiesAfter(cursor));
+
+        // then
+        verify(repository, never()).findByIdGreaterThanOrderById(any(), any());
+    }
+
+    @Test
+    void suggestCities_GivenBuiltIndex_ReturnsSuggestionsWithoutDB() {
+        // given
+        var suggestions = List.of(new CitySuggestion(cityId, cityName));
+        when(cityNameIndex.findStartingWith("Tal", SUGGESTION_LIMIT)).thenReturn(Optional.of(suggestions));
+
+        // when
+        var actualSuggestions = cityService.suggestCities("Tal");
+
+        // then
+        assertEquals(suggestions, actualSuggestions);
+        verify(repository, never()).findBySearchNameStartingWithOrderBySearchName(any(), any());
+    }
+
+    @Test
+    void suggestCities_GivenIndexStillBuilding_ReturnsSuggestionsFromDB() {
+        // given
+        when(repository.findBySearchNameStartingWithOrderBySearchName("tal", PageRequest.ofSize(SUGGESTION_LIMIT)))
+                .thenReturn(List.of(new CityEntity(cityId, cityName, picturePath)));
+
+        // when
+        var actualSuggestions = cityService.suggestCities("Tal");
+
+        // then
+        assertEquals(List.of(new CitySuggestion(cityId, cityName)), actualSuggestions);
+    }
+
+    private void storeImageAs(String imagePath) {
+        when(imageStore.store(any(byte[].class), any()))
+                .thenAnswer(invocation -> invocation.<Function<String, ?>>getArgument(1).apply(imagePath));
+    }
 }
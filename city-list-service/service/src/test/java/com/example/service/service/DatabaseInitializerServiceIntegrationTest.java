@@ -1,24 +1,35 @@
 package com.example.service.service;
 
+import com.example.service.dto.DownloadedImage;
 import com.example.service.entity.CityEntity;
+import com.example.service.entity.ImageStatus;
 import com.example.service.repository.CityRepository;
 import com.example.service.utils.FileManager;
+import com.google.common.hash.Hashing;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.runner.RunWith;
+import org.mockito.Mock;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.junit4.SpringRunner;
-import org.springframework.web.client.RestTemplate;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 
@@ -32,11 +43,17 @@ class DatabaseInitializerServiceIntegrationTest {
     @Autowired
     private DatabaseInitializerService databaseInitializerService;
 
+    @Autowired
+    private CityImageImporter cityImageImporter;
+
     @Autowired
     private CityRepository cityRepository;
 
     @MockBean
-    RestTemplate wikimediaApiRestTemplate;
+    HttpClient wikimediaHttpClient;
+
+    @Mock
+    private HttpResponse<DownloadedImage> response;
 
     private final InputStream resourceAsStream = CityServiceTest.class.getClassLoader().getResourceAsStream("Tallinn.jpg");
     private final MockMultipartFile image = new MockMultipartFile(
@@ -52,31 +69,60 @@ class DatabaseInitializerServiceIntegrationTest {
     }
 
     @Test
-    void initDB_GivenNoDataInDB_InitializesDB() throws Exception {
+    void initDB_GivenNoDataInDB_StoresCitiesBeforeTheirImages() throws Exception {
         // given
         assertThat(cityRepository.count()).isZero();
-        ResponseEntity<byte[]> response = new ResponseEntity<>(image.getBytes(), HttpStatus.OK);
-        when(wikimediaApiRestTemplate.getForEntity("city_image.jpg", byte[].class))
-                .thenReturn(response);
+        when(response.statusCode()).thenReturn(200);
+        when(response.headers()).thenReturn(HttpHeaders.of(Map.of(), (name, value) -> true));
+        when(response.body()).thenAnswer(invocation -> downloadImage());
+        when(wikimediaHttpClient.<DownloadedImage>sendAsync(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(response));
 
         // when
         databaseInitializerService.initializeDB();
 
         // then
-        assertThat(cityRepository.count()).isNotZero();
+        assertThat(cityRepository.findAll())
+                .hasSize(5)
+                .allMatch(cityEntity -> cityEntity.getImageStatus() == ImageStatus.PENDING);
+        verify(wikimediaHttpClient, never()).sendAsync(any(), any());
+
+        // when
+        cityImageImporter.importPendingImages();
+
+        // then
+        assertThat(cityRepository.findAll())
+                .allMatch(cityEntity -> cityEntity.getImageStatus() == ImageStatus.READY && cityEntity.getImagePath() != null);
 
         // clean
-        cityRepository.findAll().forEach(cityEntity -> {
-            try {
-                FileManager.deleteImage(cityEntity.getImagePath());
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
-        });
+        deleteImportedImages();
     }
 
     @Test
-    void initDB_GivenSomeDataInDb_DoesNothing() throws Exception {
+    void initDB_GivenPartialImport_ImportsOnlyMissingCities() throws Exception {
+        // given
+        cityRepository.save(new CityEntity(null, "Tokyo", "", "1", ImageStatus.READY, null, null, null, null));
+        cityRepository.save(new CityEntity(null, "Jakarta", "", "2", ImageStatus.READY, null, null, null, null));
+        when(response.statusCode()).thenReturn(200);
+        when(response.headers()).thenReturn(HttpHeaders.of(Map.of(), (name, value) -> true));
+        when(response.body()).thenAnswer(invocation -> downloadImage());
+        when(wikimediaHttpClient.<DownloadedImage>sendAsync(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(response));
+
+        // when
+        databaseInitializerService.initializeDB();
+        cityImageImporter.importPendingImages();
+
+        // then
+        assertThat(cityRepository.count()).isEqualTo(5);
+        verify(wikimediaHttpClient, times(3)).sendAsync(any(), any());
+
+        // clean
+        deleteImportedImages();
+    }
+
+    @Test
+    void initDB_GivenDataImportedWithoutSourceIds_DoesNothing() throws Exception {
         // given
         cityRepository.save(new CityEntity(null, "", ""));
 
@@ -87,4 +133,22 @@ class DatabaseInitializerServiceIntegrationTest {
         assertThat(cityRepository.count()).isOne();
     }
 
+    private DownloadedImage downloadImage() throws IOException {
+        // every download owns its temporary file, which the import moves into the image store
+        var file = FileManager.createTempImageFile();
+        Files.write(file, image.getBytes());
+        return new DownloadedImage(file, Hashing.sha256().hashBytes(image.getBytes()).toString(), image.getSize());
+    }
+
+    private void deleteImportedImages() {
+        cityRepository.findAll().stream()
+                .filter(cityEntity -> cityEntity.getImagePath() != null && !cityEntity.getImagePath().isEmpty())
+                .forEach(cityEntity -> {
+                    try {
+                        FileManager.deleteImage(cityEntity.getImagePath());
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+    }
 }
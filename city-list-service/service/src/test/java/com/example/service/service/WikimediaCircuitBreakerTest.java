@@ -0,0 +1,91 @@
+package com.example.service.service;
+
+import com.example.service.config.WikimediaApiProperties;
+import com.google.common.base.Ticker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.util.unit.DataSize;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class WikimediaCircuitBreakerTest {
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WikimediaCircuitBreaker circuitBreaker = new WikimediaCircuitBreaker(
+            new WikimediaApiProperties("token", "user-agent", 1000, 1000, 8, 100,
+                    3, Duration.ZERO, Duration.ZERO, 2, Duration.ofSeconds(60), DataSize.ofMegabytes(1)),
+            meterRegistry,
+            new Ticker() {
+                @Override
+                public long read() {
+                    return nanoTime.get();
+                }
+            }
+    );
+
+    @Test
+    void onFailure_GivenFailureThresholdReached_OpensAndRejectsCalls() {
+        // when
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+
+        // then
+        assertEquals(WikimediaCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+        assertEquals(1, meterRegistry.get("wikimedia.circuitbreaker.state").tag("state", "open").gauge().value());
+        assertEquals(1, meterRegistry.get("wikimedia.circuitbreaker.rejected").counter().count());
+    }
+
+    @Test
+    void onFailure_GivenSuccessInBetween_StaysClosed() {
+        // when
+        circuitBreaker.onFailure();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onFailure();
+
+        // then
+        assertEquals(WikimediaCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void tryAcquirePermission_GivenOpenDurationPassed_LetsOneTrialCallThrough() {
+        // given
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        nanoTime.addAndGet(Duration.ofSeconds(60).toNanos());
+
+        // when
+        var trialCallPermitted = circuitBreaker.tryAcquirePermission();
+        var secondCallPermitted = circuitBreaker.tryAcquirePermission();
+
+        // then
+        assertTrue(trialCallPermitted);
+        assertFalse(secondCallPermitted);
+        assertEquals(WikimediaCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void onFailure_GivenFailedTrialCall_OpensAgain() {
+        // given
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        nanoTime.addAndGet(Duration.ofSeconds(60).toNanos());
+        circuitBreaker.tryAcquirePermission();
+
+        // when
+        circuitBreaker.onFailure();
+
+        // then
+        assertEquals(WikimediaCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+}
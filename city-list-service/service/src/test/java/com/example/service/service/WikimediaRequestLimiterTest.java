@@ -0,0 +1,97 @@
+package com.example.service.service;
+
+import com.example.service.config.WikimediaApiProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.util.unit.DataSize;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+class WikimediaRequestLimiterTest {
+
+    private static final String IMAGE_URL = "https://upload.wikimedia.org/image.jpg";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void requestsPerSecond_GivenNoConfiguredRate_UsesRateLimitOfAuthToken() {
+        // given
+        var authToken = createToken("{\"ratelimit\":{\"requests_per_unit\":7200,\"unit\":\"HOUR\"}}");
+
+        // when
+        var requestLimiter = new WikimediaRequestLimiter(properties(authToken, 8, 0), objectMapper);
+
+        // then
+        assertThat(requestLimiter.getRequestsPerSecond()).isEqualTo(2.0);
+    }
+
+    @Test
+    void requestsPerSecond_GivenConfiguredRate_UsesConfiguredRate() {
+        // given
+        var authToken = createToken("{\"ratelimit\":{\"requests_per_unit\":7200,\"unit\":\"HOUR\"}}");
+
+        // when
+        var requestLimiter = new WikimediaRequestLimiter(properties(authToken, 8, 5), objectMapper);
+
+        // then
+        assertThat(requestLimiter.getRequestsPerSecond()).isEqualTo(5.0);
+    }
+
+    @Test
+    void requestsPerSecond_GivenTokenWithoutRateLimit_UsesAnonymousRateLimit() {
+        // when
+        var requestLimiter = new WikimediaRequestLimiter(properties("token", 8, 0), objectMapper);
+
+        // then
+        assertThat(requestLimiter.getRequestsPerSecond()).isEqualTo(500.0 / 3600);
+    }
+
+    @Test
+    void acquire_GivenAllHostPermitsTaken_CompletesOnRelease() throws Exception {
+        // given
+        var requestLimiter = new WikimediaRequestLimiter(properties("token", 1, 1000), objectMapper);
+        requestLimiter.acquire(IMAGE_URL).get(1, TimeUnit.SECONDS);
+
+        // when
+        var secondRequest = requestLimiter.acquire(IMAGE_URL);
+
+        // then
+        assertThat(secondRequest).isNotDone();
+        requestLimiter.release(IMAGE_URL);
+        secondRequest.get(1, TimeUnit.SECONDS);
+        assertThat(secondRequest).isCompleted();
+    }
+
+    @Test
+    void acquire_GivenRateExceeded_CompletesWhenRateAllowsWithoutBlocking() throws Exception {
+        // given
+        var requestLimiter = new WikimediaRequestLimiter(properties("token", 8, 5), objectMapper);
+        requestLimiter.acquire(IMAGE_URL).get(1, TimeUnit.SECONDS);
+
+        // when
+        var secondRequest = requestLimiter.acquire(IMAGE_URL);
+
+        // then
+        assertThat(secondRequest).isNotDone();
+        secondRequest.get(1, TimeUnit.SECONDS);
+        assertThat(secondRequest).isCompleted();
+    }
+
+    private WikimediaApiProperties properties(String authToken, int maxConcurrentRequestsPerHost, double requestsPerSecond) {
+        return new WikimediaApiProperties(authToken, "user-agent", 1000, 1000, maxConcurrentRequestsPerHost, requestsPerSecond,
+                1, Duration.ZERO, Duration.ZERO, 1, Duration.ZERO, DataSize.ofMegabytes(1));
+    }
+
+    private String createToken(String payload) {
+        var encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"RS256\"}".getBytes(StandardCharsets.UTF_8)) + "." +
+                encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + ".signature";
+    }
+}
@@ -1,77 +1,278 @@
 package com.example.service.service;
 
+import com.example.service.config.WikimediaApiProperties;
+import com.example.service.dto.DownloadedImage;
 import com.example.service.exception.ImageNotFoundException;
-import java.io.IOException;
-import java.io.InputStream;
+import com.example.service.exception.ImageTooLargeException;
+import com.example.service.exception.WikimediaUnavailableException;
+import com.example.service.interceptor.BearerTokenAuthInterceptor;
+import com.example.service.interceptor.UserAgentHttpHeaderInterceptor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
-import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.util.unit.DataSize;
 
 import static com.example.service.exception.ImageNotFoundException.IMAGE_NOT_FOUND_EXCEPTION_MESSAGE;
-import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(SpringExtension.class)
 class WikimediaRestClientServiceTest {
 
-    WikimediaRestClientServiceTest() throws IOException {
-    }
+    private static final String URL = "https://upload.wikimedia.org/image.jpg";
+    private static final String ETAG = "\"v1\"";
+
+    @Mock
+    private HttpClient wikimediaHttpClient;
 
     @Mock
-    private RestTemplate wikimediaApiRestTemplate;
+    private WikimediaRequestLimiter requestLimiter;
+
+    @Mock
+    private WikimediaCircuitBreaker circuitBreaker;
+
+    @Mock
+    private HttpResponse<DownloadedImage> okResponse;
+
+    @Mock
+    private HttpResponse<DownloadedImage> errorResponse;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
 
-    @InjectMocks
     private WikimediaRestClientService service;
 
-    private final InputStream resourceAsStream = CityServiceTest.class.getClassLoader().getResourceAsStream("Tallinn.jpg");
-    private final MockMultipartFile image = new MockMultipartFile(
-            "image",
-            "image.png",
-            MediaType.IMAGE_PNG_VALUE,
-            resourceAsStream
-    );
+    private final DownloadedImage downloadedImage = new DownloadedImage(Path.of("download.tmp"), "hash", 3);
+
+    @BeforeEach
+    void setup() {
+        var properties = new WikimediaApiProperties("token", "user-agent", 1000, 1000, 8, 100,
+                3, Duration.ZERO, Duration.ofSeconds(1), 10, Duration.ofMinutes(1), DataSize.ofMegabytes(1));
+        var requestInterceptors = List.of(new BearerTokenAuthInterceptor("token"), new UserAgentHttpHeaderInterceptor("user-agent"));
+        service = new WikimediaRestClientService(wikimediaHttpClient, requestInterceptors, requestLimiter, circuitBreaker,
+                properties, meterRegistry);
+        when(circuitBreaker.tryAcquirePermission()).thenReturn(true);
+        when(requestLimiter.acquire(URL)).thenReturn(CompletableFuture.completedFuture(null));
+        when(okResponse.statusCode()).thenReturn(200);
+        when(okResponse.headers()).thenReturn(HttpHeaders.of(Map.of("ETag", List.of(ETAG)), (name, value) -> true));
+        when(okResponse.body()).thenReturn(downloadedImage);
+    }
+
+    @Test
+    void fetchImage_GivenValidUrl_ReturnsDataWithAuthAndUserAgentHeaders() {
+        // given
+        var requestCaptor = ArgumentCaptor.forClass(HttpRequest.class);
+        when(wikimediaHttpClient.<DownloadedImage>sendAsync(requestCaptor.capture(), any()))
+                .thenReturn(CompletableFuture.completedFuture(okResponse));
+
+        // when
+        var actualImageResponse = service.fetchImage(URL).join();
+
+        // then
+        assertThat(actualImageResponse).isEqualTo(downloadedImage.withEtag(ETAG));
+        assertThat(requestCaptor.getValue().headers().firstValue("Authorization")).contains("Bearer token");
+        assertThat(requestCaptor.getValue().headers().firstValue("User-Agent")).contains("user-agent");
+        verify(requestLimiter).acquire(URL);
+        verify(requestLimiter).release(URL);
+        verify(circuitBreaker).onSuccess();
+    }
 
     @Test
-    void fetchImage_GivenValidUrl_ReturnsData() throws IOException {
+    void fetchImage_GivenNotFound_ThrowsExceptionWithoutRetry() {
         // given
-        String url = "https//image.jpg";
-        ResponseEntity<byte[]> response = new ResponseEntity<>(image.getBytes(), HttpStatus.OK);
-        when(wikimediaApiRestTemplate.getForEntity(url, byte[].class))
-                .thenReturn(response);
+        var expectedExceptionMessage = String.format(IMAGE_NOT_FOUND_EXCEPTION_MESSAGE, URL);
+        when(errorResponse.statusCode()).thenReturn(404);
+        when(wikimediaHttpClient.<DownloadedImage>sendAsync(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(errorResponse));
 
         // when
-        var actualImageResponse = service.fetchImage(url);
+        var exception = assertThrows(CompletionException.class, () -> service.fetchImage(URL).join());
 
         // then
-        assertThat(actualImageResponse).isNotEmpty();
+        assertThat(exception.getCause()).isInstanceOf(ImageNotFoundException.class);
+        assertEquals(expectedExceptionMessage, exception.getCause().getMessage());
+        verify(wikimediaHttpClient, times(1)).sendAsync(any(), any());
+        verify(requestLimiter).release(URL);
     }
 
     @Test
-    void fetchImage_GivenInvalidUrl_ThrowsException() {
+    void fetchImage_GivenTransientServerError_RetriesAndReturnsData() {
         // given
-        String url = "https//image.jpg";
-        var expectedExceptionMessage = String.format(IMAGE_NOT_FOUND_EXCEPTION_MESSAGE, url);
-        when(wikimediaApiRestTemplate.getForEntity(url, byte[].class))
-                .thenThrow(new RestClientException("404 Not Found"));
+        when(errorResponse.statusCode()).thenReturn(503);
+        when(errorResponse.headers()).thenReturn(HttpHeaders.of(Map.of(), (name, value) -> true));
+        when(wikimediaHttpClient.<DownloadedImage>sendAsync(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(errorResponse))
+                .thenReturn(CompletableFuture.completedFuture(okResponse));
 
         // when
-        var exception = assertThrows(
-                ImageNotFoundException.class, () -> service.fetchImage(url)
-        );
-        var actualExceptionMessage = exception.getMessage();
+        var actualImageResponse = service.fetchImage(URL).join();
 
         // then
-        assertEquals(expectedExceptionMessage, actualExceptionMessage);
+        assertThat(actualImageResponse).isEqualTo(downloadedImage.withEtag(ETAG));
+        verify(circuitBreaker).onFailure();
+        verify(requestLimiter, times(2)).release(URL);
+        assertEquals(1, meterRegistry.get("wikimedia.requests.retries").tag("reason", "503").counter().count());
     }
 
+    @Test
+    void fetchImage_GivenRetryWaitingForPermit_KeepsClientThreadFree() throws Exception {
+        // given
+        var clientExecutor = Executors.newSingleThreadExecutor();
+        var retryPermit = new CompletableFuture<Void>();
+        when(wikimediaHttpClient.executor()).thenReturn(Optional.of(clientExecutor));
+        when(requestLimiter.acquire(URL))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenReturn(retryPermit);
+        when(errorResponse.statusCode()).thenReturn(503);
+        when(errorResponse.headers()).thenReturn(HttpHeaders.of(Map.of(), (name, value) -> true));
+        when(wikimediaHttpClient.<DownloadedImage>sendAsync(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(errorResponse))
+                .thenReturn(CompletableFuture.completedFuture(okResponse));
+
+        try {
+            // when
+            var imageResponse = service.fetchImage(URL);
+
+            // then
+            verify(requestLimiter, timeout(1000).times(2)).acquire(URL);
+            assertThat(imageResponse).isNotDone();
+            assertThat(clientExecutor.submit(() -> true).get(1, TimeUnit.SECONDS)).isTrue();
+            retryPermit.complete(null);
+            assertThat(imageResponse.get(1, TimeUnit.SECONDS)).isEqualTo(downloadedImage.withEtag(ETAG));
+        } finally {
+            clientExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void fetchImage_GivenTimeoutOnEveryAttempt_ThrowsExceptionAfterMaxAttempts() {
+        // given
+        when(wikimediaHttpClient.<DownloadedImage>sendAsync(any(), any()))
+                .thenAnswer(invocation -> CompletableFuture.failedFuture(new HttpTimeoutException("request timed out")));
+
+        // when
+        var exception = assertThrows(CompletionException.class, () -> service.fetchImage(URL).join());
+
+        // then
+        assertThat(exception.getCause()).isInstanceOf(ImageNotFoundException.class);
+        verify(wikimediaHttpClient, times(3)).sendAsync(any(), any());
+        verify(circuitBreaker, times(3)).onFailure();
+    }
+
+    @Test
+    void fetchImage_GivenRetryAfterLongerThanMaxBackoff_DoesNotRetry() {
+        // given
+        when(errorResponse.statusCode()).thenReturn(429);
+        when(errorResponse.headers()).thenReturn(HttpHeaders.of(Map.of("Retry-After", List.of("120")), (name, value) -> true));
+        when(wikimediaHttpClient.<DownloadedImage>sendAsync(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(errorResponse));
+
+        // when
+        assertThrows(CompletionException.class, () -> service.fetchImage(URL).join());
+
+        // then
+        verify(wikimediaHttpClient, times(1)).sendAsync(any(), any());
+    }
+
+    @Test
+    void fetchImage_GivenOpenCircuitBreaker_ThrowsExceptionWithoutCalling() {
+        // given
+        when(circuitBreaker.tryAcquirePermission()).thenReturn(false);
+
+        // when
+        var exception = assertThrows(CompletionException.class, () -> service.fetchImage(URL).join());
+
+        // then
+        assertThat(exception.getCause().getCause()).isInstanceOf(WikimediaUnavailableException.class);
+        verify(wikimediaHttpClient, never()).sendAsync(any(), any());
+        verify(requestLimiter).release(URL);
+    }
+
+    @Test
+    void fetchImage_GivenCircuitBreakerOpenedWhileWaitingForPermit_DoesNotSend() {
+        // given
+        var permit = new CompletableFuture<Void>();
+        when(requestLimiter.acquire(URL)).thenReturn(permit);
+        var imageResponse = service.fetchImage(URL);
+        when(circuitBreaker.tryAcquirePermission()).thenReturn(false);
+
+        // when
+        permit.complete(null);
+
+        // then
+        var exception = assertThrows(CompletionException.class, imageResponse::join);
+        assertThat(exception.getCause().getCause()).isInstanceOf(WikimediaUnavailableException.class);
+        verify(wikimediaHttpClient, never()).sendAsync(any(), any());
+        verify(requestLimiter).release(URL);
+    }
+
+    @Test
+    void fetchImage_GivenImageLargerThanLimit_ThrowsExceptionWithoutRetry() {
+        // given
+        when(wikimediaHttpClient.<DownloadedImage>sendAsync(any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new ImageTooLargeException(DataSize.ofMegabytes(1).toBytes())));
+
+        // when
+        var exception = assertThrows(CompletionException.class, () -> service.fetchImage(URL).join());
+
+        // then
+        assertThat(exception.getCause().getCause()).isInstanceOf(ImageTooLargeException.class);
+        verify(wikimediaHttpClient, times(1)).sendAsync(any(), any());
+        verify(circuitBreaker, never()).onFailure();
+    }
+
+    @Test
+    void revalidateImage_GivenNotModified_ReturnsEmptyWithConditionalHeaders() {
+        // given
+        var requestCaptor = ArgumentCaptor.forClass(HttpRequest.class);
+        when(errorResponse.statusCode()).thenReturn(304);
+        when(wikimediaHttpClient.<DownloadedImage>sendAsync(requestCaptor.capture(), any()))
+                .thenReturn(CompletableFuture.completedFuture(errorResponse));
+
+        // when
+        var actualImageResponse = service.revalidateImage(URL, ETAG, "Wed, 21 Oct 2015 07:28:00 GMT").join();
+
+        // then
+        assertThat(actualImageResponse).isEmpty();
+        assertThat(requestCaptor.getValue().headers().firstValue("If-None-Match")).contains(ETAG);
+        assertThat(requestCaptor.getValue().headers().firstValue("If-Modified-Since")).contains("Wed, 21 Oct 2015 07:28:00 GMT");
+        verify(circuitBreaker).onSuccess();
+    }
+
+    @Test
+    void revalidateImage_GivenChangedImage_ReturnsItWithNewValidators() {
+        // given
+        when(wikimediaHttpClient.<DownloadedImage>sendAsync(any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(okResponse));
+
+        // when
+        var actualImageResponse = service.revalidateImage(URL, "\"v0\"", null).join();
+
+        // then
+        assertThat(actualImageResponse).contains(downloadedImage.withEtag(ETAG));
+    }
 }
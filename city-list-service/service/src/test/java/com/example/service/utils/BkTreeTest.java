@@ -0,0 +1,54 @@
+package com.example.service.utils;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(SpringExtension.class)
+class BkTreeTest {
+
+    @Test
+    void distance_ReturnsLevenshteinDistance() {
+        // when, then
+        assertEquals(0, BkTree.distance("jakarta", "jakarta"));
+        assertEquals(1, BkTree.distance("jakrta", "jakarta"));
+        assertEquals(1, BkTree.distance("mumbay", "mumbai"));
+        assertEquals(3, BkTree.distance("kitten", "sitting"));
+        assertEquals(5, BkTree.distance("", "tokyo"));
+    }
+
+    @Test
+    void search_GivenMisspelledKey_ReturnsKeysWithinDistance() {
+        // given
+        var tree = new BkTree<Long>();
+        tree.add("jakarta", 1L);
+        tree.add("mumbai", 2L);
+        tree.add("jaipur", 3L);
+        tree.add("karachi", 4L);
+        tree.add("jakarta", 5L);
+
+        // when
+        var matches = tree.search("jakrta", 2);
+
+        // then
+        assertThat(matches).containsExactly(new BkTree.Match<>("jakarta", 1, List.of(1L, 5L)));
+    }
+
+    @Test
+    void remove_GivenLastValueOfKey_StopsMatchingItButKeepsItsChildren() {
+        // given
+        var tree = new BkTree<Long>();
+        tree.add("mumbai", 1L);
+        tree.add("mumbay", 2L);
+
+        // when
+        tree.remove("mumbai", 1L);
+
+        // then
+        assertThat(tree.search("mumbai", 1)).containsExactly(new BkTree.Match<>("mumbay", 1, List.of(2L)));
+    }
+}
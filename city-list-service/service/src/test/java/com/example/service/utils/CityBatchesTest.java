@@ -0,0 +1,49 @@
+package com.example.service.utils;
+
+import com.example.service.entity.CityEntity;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+class CityBatchesTest {
+
+    @Test
+    void forEachBatch_GivenAllPermitsTaken_StartsNextCityOnceOneCompleted() throws Exception {
+        // given
+        var cities = List.of(new CityEntity(1L, "Tallinn", null), new CityEntity(2L, "Tartu", null));
+        var startedCities = new ArrayList<Long>();
+        var firstCity = new CompletableFuture<Void>();
+
+        // when
+        var walk = CompletableFuture.runAsync(() -> {
+            try {
+                CityBatches.forEachBatch(10, new Semaphore(1), (lastId, batch) -> lastId == 0 ? cities : List.of(),
+                        city -> {
+                            synchronized (startedCities) {
+                                startedCities.add(city.getId());
+                            }
+                            return city.getId() == 1L ? firstCity : CompletableFuture.completedFuture(null);
+                        });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        // then
+        Thread.sleep(200);
+        synchronized (startedCities) {
+            assertThat(startedCities).containsExactly(1L);
+        }
+        firstCity.complete(null);
+        walk.get(1, TimeUnit.SECONDS);
+        assertThat(startedCities).containsExactly(1L, 2L);
+    }
+}
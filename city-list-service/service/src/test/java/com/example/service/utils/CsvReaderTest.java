@@ -0,0 +1,72 @@
+package com.example.service.utils;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(SpringExtension.class)
+class CsvReaderTest {
+
+    @Test
+    void readRecord_GivenQuotedFields_ReturnsUnescapedFields() throws IOException {
+        // given
+        var csvReader = new CsvReader(new StringReader("\"a,b\",\"say \"\"hi\"\"\",\"\"\n"));
+
+        // when
+        List<String> record = csvReader.readRecord();
+
+        // then
+        assertThat(record).containsExactly("a,b", "say \"hi\"", "");
+        assertNull(csvReader.readRecord());
+    }
+
+    @Test
+    void readRecord_GivenLineBreakInQuotedField_KeepsItInTheField() throws IOException {
+        // given
+        var csvReader = new CsvReader(new StringReader("1,\"first\r\nsecond\"\r\n2,third"));
+
+        // when
+        var firstRecord = csvReader.readRecord();
+        var secondRecord = csvReader.readRecord();
+
+        // then
+        assertThat(firstRecord).containsExactly("1", "first\r\nsecond");
+        assertThat(secondRecord).containsExactly("2", "third");
+        assertEquals(3, csvReader.getLineNumber());
+    }
+
+    @Test
+    void readRecord_GivenBlankLinesAndByteOrderMark_SkipsThem() throws IOException {
+        // given
+        var csvReader = new CsvReader(new StringReader("\uFEFFid,name\r\n\r\n1,,\n"));
+
+        // when
+        var header = csvReader.readRecord();
+        var record = csvReader.readRecord();
+
+        // then
+        assertThat(header).containsExactly("id", "name");
+        assertThat(record).containsExactly("1", "", "");
+        assertNull(csvReader.readRecord());
+    }
+
+    @Test
+    void readRecord_GivenUnterminatedQuote_ThrowsIOException() {
+        // given
+        var csvReader = new CsvReader(new StringReader("1,\"never closed\n"));
+
+        // when
+        var exception = assertThrows(IOException.class, csvReader::readRecord);
+
+        // then
+        assertEquals("Unterminated quoted field in the record at line 1", exception.getMessage());
+    }
+}
@@ -1,10 +1,22 @@
 package com.example.service.utils;
 
+import com.example.service.dto.CityRecord;
+import com.google.common.hash.Hashing;
+import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import javax.imageio.ImageIO;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -12,6 +24,8 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @ExtendWith(SpringExtension.class)
@@ -29,34 +43,101 @@ class FileManagerIntegrationTest {
     }
 
     @Test
-    void readDataFromCsvFile_ReturnsCityList() throws IOException {
+    void readCitiesFromCsvFile_ReturnsCityRecords() throws IOException {
         // when
-        var firstElementInCSV = "Tokyo";
-        var lastElementInCSV = "Manila";
-        List<List<String>> csvFile = FileManager.readDataFromCsvFile();
+        var firstElementInCSV = new CityRecord("1", "Tokyo", "https://upload.wikimedia.org/city_image.jpg");
+        var lastElementInCSV = new CityRecord("5", "Manila", "https://upload.wikimedia.org/city_image.jpg");
+        List<CityRecord> cities;
+        try (var cityStream = FileManager.readCitiesFromCsvFile()) {
+            cities = cityStream.collect(Collectors.toList());
+        }
 
         // then
-        assertThat(csvFile).hasSize(5);
-        assertEquals(csvFile.get(0).get(1), firstElementInCSV);
-        assertEquals(csvFile.get(4).get(1), lastElementInCSV);
+        assertThat(cities).hasSize(5);
+        assertEquals(firstElementInCSV, cities.get(0));
+        assertEquals(lastElementInCSV, cities.get(4));
     }
 
     @Test
-    void saveImageToFileStorage_ReturnsPath() throws IOException {
+    void readCitiesFromCsv_GivenQuotedFields_KeepsCommasAndQuotes() throws IOException {
+        // given
+        var csv = "id,name,photo\r\n" +
+                "1,\"Washington, D.C.\",\"https://example.org/a,b.jpg\"\r\n" +
+                "2,\"The \"\"Big\"\" Apple\",new_york.jpg\r\n" +
+                "3,malformed\r\n";
+
+        // when
+        List<CityRecord> cities;
+        try (var cityStream = FileManager.readCitiesFromCsv(new StringReader(csv))) {
+            cities = cityStream.collect(Collectors.toList());
+        }
+
+        // then
+        assertThat(cities).containsExactly(
+                new CityRecord("1", "Washington, D.C.", "https://example.org/a,b.jpg"),
+                new CityRecord("2", "The \"Big\" Apple", "new_york.jpg"));
+    }
+
+    @Test
+    void saveImageToFileStorage_ReturnsContentAddressedPath() throws IOException {
+        // given
+        var imageHash = Hashing.sha256().hashBytes(image.getBytes()).toString();
+
+        // when
+        var imagePath = FileManager.saveImageToFileStorage(image.getBytes(), imageHash);
+
+        // then
+        assertTrue(imagePath.endsWith(imageHash + ".jpg"));
+        assertEquals(Optional.of(imageHash), FileManager.getImageHash(imagePath));
+
+        FileManager.deleteImage(imagePath);
+    }
+
+    @Test
+    void saveImageToFileStorage_GivenSameImageTwice_StoresItOnce() throws IOException {
+        // given
+        var firstImagePath = FileManager.saveImageToFileStorage(image.getBytes(), imageHash());
+
+        // when
+        var secondImagePath = FileManager.saveImageToFileStorage(image.getBytes(), imageHash());
+
+        // then
+        assertEquals(firstImagePath, secondImagePath);
+        assertTrue(FileManager.deleteImage(secondImagePath));
+        assertFalse(FileManager.deleteImage(firstImagePath));
+    }
+
+    @Test
+    void moveImageToFileStorage_GivenDownloadedImage_MovesItToContentAddressedPath() throws IOException {
+        // given
+        var imageHash = Hashing.sha256().hashBytes(image.getBytes()).toString();
+        var tempFile = FileManager.createTempImageFile();
+        Files.write(tempFile, image.getBytes());
+
         // when
-        var imageName = "Tallinn";
-        var imagePath = FileManager.saveImageToFileStorage(image.getBytes(), imageName);
+        var imagePath = FileManager.moveImageToFileStorage(tempFile, imageHash);
 
         // then
-        assertTrue(imagePath.contains(imageName));
+        assertTrue(imagePath.endsWith(imageHash + ".jpg"));
+        assertFalse(Files.exists(tempFile));
+        assertThat(Files.readAllBytes(Paths.get(imagePath))).isEqualTo(image.getBytes());
 
         FileManager.deleteImage(imagePath);
     }
 
+    @Test
+    void getImageHash_GivenLegacyImageName_ReturnsEmpty() {
+        // when
+        var imageHash = FileManager.getImageHash("images/cities/Tallinn_0b7c6e4e-5a39-4c2b-8f8e-7c2d9a4f1e1a.jpg");
+
+        // then
+        assertEquals(Optional.empty(), imageHash);
+    }
+
     @Test
     void deleteImage_ReturnTrue() throws IOException {
         // given
-        var imagePath = FileManager.saveImageToFileStorage(image.getBytes(), "city_name");
+        var imagePath = FileManager.saveImageToFileStorage(image.getBytes(), imageHash());
 
         // when
         var imageDeleted = FileManager.deleteImage(imagePath);
@@ -65,6 +146,44 @@ class FileManagerIntegrationTest {
         assertTrue(imageDeleted);
     }
 
+    @Test
+    void saveImageDerivatives_CreatesSmallerCopies() throws IOException {
+        // given
+        var imagePath = FileManager.saveImageToFileStorage(image.getBytes(), imageHash());
+        var originalWidth = ImageIO.read(new File(imagePath)).getWidth();
+
+        // when
+        FileManager.saveImageDerivatives(imagePath, List.of(100, originalWidth + 100));
+
+        // then
+        var derivativePath = FileManager.resolveImagePath(imagePath, 100);
+        assertNotEquals(imagePath, derivativePath);
+        assertEquals(100, ImageIO.read(new File(derivativePath)).getWidth());
+        assertEquals(imagePath, FileManager.resolveImagePath(imagePath, originalWidth + 100));
+
+        // clean
+        FileManager.deleteImage(imagePath);
+        assertFalse(Files.exists(Paths.get(derivativePath)));
+    }
+
+    @Test
+    @ExtendWith(OutputCaptureExtension.class)
+    void saveImageDerivatives_GivenDerivativesExist_DoesNotReadImage(CapturedOutput output) throws IOException {
+        // given
+        var imagePath = FileManager.saveImageToFileStorage(image.getBytes(), imageHash());
+        FileManager.saveImageDerivatives(imagePath, List.of(100));
+        Files.write(Paths.get(imagePath), new byte[]{1, 2, 3});
+
+        // when
+        FileManager.saveImageDerivatives(imagePath, List.of(100));
+
+        // then
+        assertThat(output).doesNotContain(imagePath);
+
+        // clean
+        FileManager.deleteImage(imagePath);
+    }
+
     @Test
     void deleteImage_NoImage_ReturnFalse() throws IOException {
         // when
@@ -74,20 +193,33 @@ class FileManagerIntegrationTest {
         assertFalse(imageDeleted);
     }
 
+    @Test
+    void loadImageByPath_NoImage_ThrowsException() {
+        // when
+        var exception = assertThrows(
+                FileNotFoundException.class, () -> FileManager.loadImageByPath("no_image_path.jpg")
+        );
+
+        // then
+        assertEquals("no_image_path.jpg", exception.getMessage());
+    }
+
     @Test
     void loadImageByPath_ReturnsData() throws IOException {
         // given
-        String imagePath = FileManager.saveImageToFileStorage(image.getBytes(), image.getName());
+        String imagePath = FileManager.saveImageToFileStorage(image.getBytes(), imageHash());
 
         // when
         var actualImage = FileManager.loadImageByPath(imagePath);
 
         // then
-        assertThat(actualImage).isNotEmpty();
+        assertThat(actualImage.contentLength()).isEqualTo(image.getSize());
 
         // clean
         FileManager.deleteImage(imagePath);
     }
 
-
+    private String imageHash() throws IOException {
+        return Hashing.sha256().hashBytes(image.getBytes()).toString();
+    }
 }
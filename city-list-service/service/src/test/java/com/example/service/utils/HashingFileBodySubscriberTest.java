@@ -0,0 +1,91 @@
+package com.example.service.utils;
+
+import com.example.service.exception.ImageTooLargeException;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(SpringExtension.class)
+class HashingFileBodySubscriberTest {
+
+    private final byte[] firstChunk = {1, 2, 3};
+    private final byte[] secondChunk = {4, 5};
+
+    @Mock
+    private Flow.Subscription subscription;
+
+    private Path file;
+
+    @BeforeEach
+    void setup() throws IOException {
+        file = Files.createTempFile("download-", ".tmp");
+        file.toFile().deleteOnExit();
+    }
+
+    @Test
+    void onComplete_GivenChunks_WritesThemToFileAndHashesThem() throws IOException {
+        // given
+        var subscriber = new HashingFileBodySubscriber(file, 10);
+        var expectedHash = Hashing.sha256().newHasher().putBytes(firstChunk).putBytes(secondChunk).hash().toString();
+
+        // when
+        subscriber.onSubscribe(subscription);
+        subscriber.onNext(List.of(ByteBuffer.wrap(firstChunk), ByteBuffer.wrap(secondChunk)));
+        subscriber.onComplete();
+        var downloadedImage = subscriber.getBody().toCompletableFuture().join();
+
+        // then
+        assertEquals(file, downloadedImage.getFile());
+        assertEquals(expectedHash, downloadedImage.getHash());
+        assertEquals(5, downloadedImage.getSize());
+        assertThat(Files.readAllBytes(file)).containsExactly(1, 2, 3, 4, 5);
+    }
+
+    @Test
+    void onNext_GivenBodyLargerThanLimit_CancelsAndDeletesFile() throws IOException {
+        // given
+        var subscriber = new HashingFileBodySubscriber(file, 4);
+
+        // when
+        subscriber.onSubscribe(subscription);
+        subscriber.onNext(List.of(ByteBuffer.wrap(firstChunk)));
+        subscriber.onNext(List.of(ByteBuffer.wrap(secondChunk)));
+
+        // then
+        var exception = assertThrows(CompletionException.class, () -> subscriber.getBody().toCompletableFuture().join());
+        assertThat(exception.getCause()).isInstanceOf(ImageTooLargeException.class);
+        verify(subscription).cancel();
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void onError_DeletesFile() throws IOException {
+        // given
+        var subscriber = new HashingFileBodySubscriber(file, 10);
+
+        // when
+        subscriber.onSubscribe(subscription);
+        subscriber.onNext(List.of(ByteBuffer.wrap(firstChunk)));
+        subscriber.onError(new IOException("connection reset"));
+
+        // then
+        assertThrows(CompletionException.class, () -> subscriber.getBody().toCompletableFuture().join());
+        assertFalse(Files.exists(file));
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.service.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@ExtendWith(SpringExtension.class)
+class NameNormalizerTest {
+
+    @Test
+    void normalize_GivenAccentedName_ReturnsLowercaseNameWithoutDiacritics() {
+        // when, then
+        assertEquals("sao paulo", NameNormalizer.normalize("São Paulo"));
+        assertEquals("sao paulo", NameNormalizer.normalize("SAO PAULO"));
+        assertEquals("zurich", NameNormalizer.normalize("Zürich"));
+        assertEquals("malmo", NameNormalizer.normalize("Malmö"));
+    }
+
+    @Test
+    void normalize_GivenCompatibilityCharacters_ReturnsDecomposedName() {
+        // when, then
+        assertEquals("fiji", NameNormalizer.normalize("ﬁji"));
+    }
+
+    @Test
+    void normalize_GivenNull_ReturnsNull() {
+        // when, then
+        assertNull(NameNormalizer.normalize(null));
+    }
+}